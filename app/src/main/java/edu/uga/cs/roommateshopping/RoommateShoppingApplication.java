@@ -0,0 +1,14 @@
+package edu.uga.cs.roommateshopping;
+
+import android.app.Application;
+
+import edu.uga.cs.roommateshopping.services.ShoppingRepository;
+
+public class RoommateShoppingApplication extends Application {
+    @Override
+    public void onCreate() {
+        super.onCreate();
+        // Disk persistence has to be switched on before any database reference is created
+        ShoppingRepository.init();
+    }
+}
@@ -0,0 +1,106 @@
+package edu.uga.cs.roommateshopping.adapters;
+
+/**
+ * Counts binds, bind time and allocations per frame for an adapter.
+ *
+ * The adapter wraps each bind in begin()/end(); whoever owns the frame
+ * clock (FrameBindMonitor on device, the test itself in unit tests) calls
+ * endFrame() once per frame, which hands the frame's totals to the Reporter
+ * and starts a new frame. Allocations come from an AllocationCounter so the
+ * same stats work on ART and on the JVM.
+ */
+public class BindStats {
+    // Monotonic count of allocations (or allocated bytes) on the binding thread
+    public interface AllocationCounter {
+        long count();
+    }
+
+    public interface Reporter {
+        void onFrame(Frame frame);
+    }
+
+    public static class Frame {
+        public final int binds;
+        public final long bindNanos;
+        public final long allocations;
+        public final boolean overBudget;
+
+        Frame(int binds, long bindNanos, long allocations, boolean overBudget) {
+            this.binds = binds;
+            this.bindNanos = bindNanos;
+            this.allocations = allocations;
+            this.overBudget = overBudget;
+        }
+
+        @Override
+        public String toString() {
+            return binds + " binds, " + (bindNanos / 1000) + " us, " + allocations + " allocations";
+        }
+    }
+
+    private final AllocationCounter allocationCounter;
+    private final long allocationBudgetPerBind;
+    private Reporter reporter;
+
+    private int frameBinds;
+    private long frameBindNanos;
+    private long frameAllocations;
+    private long startNanos;
+    private long startAllocations;
+
+    private long totalBinds;
+    private long totalAllocations;
+    private int framesOverBudget;
+
+    public BindStats(AllocationCounter allocationCounter, long allocationBudgetPerBind) {
+        this.allocationCounter = allocationCounter;
+        this.allocationBudgetPerBind = allocationBudgetPerBind;
+    }
+
+    public void setReporter(Reporter reporter) {
+        this.reporter = reporter;
+    }
+
+    public void begin() {
+        startAllocations = allocationCounter.count();
+        startNanos = System.nanoTime();
+    }
+
+    public void end() {
+        long nanos = System.nanoTime() - startNanos;
+        long allocations = allocationCounter.count() - startAllocations;
+        frameBinds++;
+        frameBindNanos += nanos;
+        frameAllocations += allocations;
+    }
+
+    // Closes the current frame; frames without binds are not reported
+    public void endFrame() {
+        if (frameBinds == 0) return;
+
+        boolean overBudget = frameAllocations > allocationBudgetPerBind * frameBinds;
+        Frame frame = new Frame(frameBinds, frameBindNanos, frameAllocations, overBudget);
+        totalBinds += frameBinds;
+        totalAllocations += frameAllocations;
+        if (overBudget) framesOverBudget++;
+        frameBinds = 0;
+        frameBindNanos = 0;
+        frameAllocations = 0;
+
+        if (reporter != null) {
+            reporter.onFrame(frame);
+        }
+    }
+
+    public long getTotalBinds() {
+        return totalBinds;
+    }
+
+    public long getTotalAllocations() {
+        return totalAllocations;
+    }
+
+    public int getFramesOverBudget() {
+        return framesOverBudget;
+    }
+}
@@ -0,0 +1,61 @@
+package edu.uga.cs.roommateshopping.adapters;
+
+import android.os.Debug;
+import android.util.Log;
+import android.view.Choreographer;
+
+/**
+ * Drives BindStats from the display's frame clock and logs a warning for
+ * each frame whose binds allocated more than their budget.
+ * Meant for debuggable builds only: allocation counting slows the app down.
+ */
+public class FrameBindMonitor implements Choreographer.FrameCallback {
+    // Allocations a single bind may make before the frame is flagged. setText and
+    // setChecked allocate inside the framework even for cached strings, so this
+    // leaves room for them and catches binds that also build listeners or strings.
+    private static final long ALLOCATIONS_PER_BIND = 32;
+
+    private final String tag;
+    private final BindStats stats;
+    private boolean running;
+
+    @SuppressWarnings("deprecation")
+    public FrameBindMonitor(String tag) {
+        this.tag = tag;
+        this.stats = new BindStats(Debug::getThreadAllocCount, ALLOCATIONS_PER_BIND);
+        stats.setReporter(frame -> {
+            if (frame.overBudget) {
+                Log.w(tag, "Bind allocations over budget: " + frame);
+            }
+        });
+    }
+
+    public BindStats getStats() {
+        return stats;
+    }
+
+    @SuppressWarnings("deprecation")
+    public void start() {
+        if (running) return;
+        running = true;
+        Debug.startAllocCounting();
+        Choreographer.getInstance().postFrameCallback(this);
+    }
+
+    @SuppressWarnings("deprecation")
+    public void stop() {
+        if (!running) return;
+        running = false;
+        Choreographer.getInstance().removeFrameCallback(this);
+        Debug.stopAllocCounting();
+    }
+
+    // Runs before the frame's layout pass, so it closes out the binds of the previous frame
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        stats.endFrame();
+        if (running) {
+            Choreographer.getInstance().postFrameCallback(this);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package edu.uga.cs.roommateshopping.adapters;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import edu.uga.cs.roommateshopping.models.ShoppingItem;
+
+/**
+ * Multi-select state for a list of items, kept by item id so it survives
+ * rows being replaced, inserted or removed around it. Selection mode starts
+ * with the first selected item and ends when the selection is empty.
+ */
+public class ItemSelection {
+    private final Set<String> selectedIds = new HashSet<>();
+
+    public boolean isActive() {
+        return !selectedIds.isEmpty();
+    }
+
+    public boolean isSelected(String itemId) {
+        return selectedIds.contains(itemId);
+    }
+
+    public int size() {
+        return selectedIds.size();
+    }
+
+    // Returns whether the item is selected afterwards
+    public boolean toggle(String itemId) {
+        if (selectedIds.remove(itemId)) return false;
+        selectedIds.add(itemId);
+        return true;
+    }
+
+    public void selectAll(Collection<String> itemIds) {
+        selectedIds.addAll(itemIds);
+    }
+
+    public void clear() {
+        selectedIds.clear();
+    }
+
+    // Selected items in list order; ids no longer in the list are dropped
+    public List<ShoppingItem> selectedIn(List<ShoppingItem> items) {
+        List<ShoppingItem> selected = new ArrayList<>(selectedIds.size());
+        Set<String> present = new HashSet<>();
+        for (ShoppingItem item : items) {
+            if (selectedIds.contains(item.getId())) {
+                selected.add(item);
+                present.add(item.getId());
+            }
+        }
+        selectedIds.retainAll(present);
+        return selected;
+    }
+
+    public ArrayList<String> getSelectedIds() {
+        return new ArrayList<>(selectedIds);
+    }
+}
@@ -0,0 +1,26 @@
+package edu.uga.cs.roommateshopping.adapters;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.DiffUtil;
+
+import java.util.Objects;
+
+import edu.uga.cs.roommateshopping.models.Purchase;
+
+// Identity is the purchase push id, contents are the fields shown in a row
+public class PurchaseDiffCallback extends DiffUtil.ItemCallback<Purchase> {
+    public static final PurchaseDiffCallback INSTANCE = new PurchaseDiffCallback();
+
+    @Override
+    public boolean areItemsTheSame(@NonNull Purchase oldItem, @NonNull Purchase newItem) {
+        return Objects.equals(oldItem.getId(), newItem.getId());
+    }
+
+    @Override
+    public boolean areContentsTheSame(@NonNull Purchase oldItem, @NonNull Purchase newItem) {
+        return oldItem.getTotalCents() == newItem.getTotalCents()
+                && oldItem.getPurchaseDate() == newItem.getPurchaseDate()
+                && Objects.equals(oldItem.getPurchasedBy(), newItem.getPurchasedBy())
+                && Objects.equals(oldItem.getLines(), newItem.getLines());
+    }
+}
@@ -12,29 +12,43 @@ import android.widget.TextView;
 import android.widget.Toast;
 
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.AsyncListDiffer;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.google.firebase.database.DatabaseReference;
-import com.google.firebase.database.FirebaseDatabase;
 
 import java.text.NumberFormat;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
 
 import edu.uga.cs.roommateshopping.R;
+import edu.uga.cs.roommateshopping.models.ModelMapper;
+import edu.uga.cs.roommateshopping.models.Money;
 import edu.uga.cs.roommateshopping.models.Purchase;
+import edu.uga.cs.roommateshopping.models.PurchaseLine;
 import edu.uga.cs.roommateshopping.models.ShoppingItem;
+import edu.uga.cs.roommateshopping.services.PurchaseReturn;
+import edu.uga.cs.roommateshopping.services.ShoppingRepository;
+import edu.uga.cs.roommateshopping.services.SpendingLedger;
 
 public class PurchaseHistoryAdapter extends RecyclerView.Adapter<PurchaseHistoryAdapter.ViewHolder> {
-    private List<Purchase> purchases;
+    // Diffs each submitted list on a background thread and dispatches only the changed rows
+    private final AsyncListDiffer<Purchase> differ = new AsyncListDiffer<>(this, PurchaseDiffCallback.INSTANCE);
+    private final StableIds stableIds = new StableIds();
     private final NumberFormat currencyFormatter = NumberFormat.getCurrencyInstance(Locale.US);
     private final SimpleDateFormat dateFormatter = new SimpleDateFormat("MMM dd, yyyy HH:mm", Locale.US);
-    private final DatabaseReference mDatabase = FirebaseDatabase.getInstance().getReference();
+    private final ShoppingRepository repository = ShoppingRepository.getInstance();
+    private final DatabaseReference mDatabase = repository.getRoot();
 
     public PurchaseHistoryAdapter(List<Purchase> purchases) {
-        this.purchases = purchases;
+        setHasStableIds(true);
+        updatePurchases(purchases);
     }
 
     @NonNull
@@ -47,13 +61,13 @@ public class PurchaseHistoryAdapter extends RecyclerView.Adapter<PurchaseHistory
 
     @Override
     public void onBindViewHolder(@NonNull ViewHolder holder, int position) {
-        Purchase purchase = purchases.get(position);
+        Purchase purchase = differ.getCurrentList().get(position);
         
         // Display items
         holder.itemsTextView.setText(String.join(", ", purchase.getItemNames()));
         
         // Display total amount
-        holder.totalAmountTextView.setText(currencyFormatter.format(purchase.getTotalAmount()));
+        holder.totalAmountTextView.setText(currencyFormatter.format(purchase.getTotal().toMajor()));
         
         // Display purchaser
         holder.purchasedByTextView.setText("Purchased by: " + purchase.getPurchasedBy());
@@ -81,14 +95,14 @@ public class PurchaseHistoryAdapter extends RecyclerView.Adapter<PurchaseHistory
 
         final EditText input = new EditText(view.getContext());
         input.setInputType(InputType.TYPE_CLASS_NUMBER | InputType.TYPE_NUMBER_FLAG_DECIMAL);
-        input.setText(String.valueOf(purchase.getTotalAmount()));
+        input.setText(purchase.getTotal().toDecimalString());
         builder.setView(input);
 
         builder.setPositiveButton("OK", (dialog, which) -> {
             try {
-                double newAmount = Double.parseDouble(input.getText().toString());
-                updatePurchaseAmount(purchase, newAmount);
-            } catch (NumberFormatException e) {
+                Money newAmount = Money.parse(input.getText().toString());
+                updatePurchaseAmount(view, purchase, newAmount);
+            } catch (NumberFormatException | ArithmeticException e) {
                 Toast.makeText(view.getContext(), "Please enter a valid amount", Toast.LENGTH_SHORT).show();
             }
         });
@@ -101,14 +115,19 @@ public class PurchaseHistoryAdapter extends RecyclerView.Adapter<PurchaseHistory
         AlertDialog.Builder builder = new AlertDialog.Builder(view.getContext());
         builder.setTitle("Select Items to Return");
 
-        String[] items = purchase.getItemNames().toArray(new String[0]);
+        List<PurchaseLine> lines = purchase.getLines();
+        String[] items = new String[lines.size()];
         boolean[] checkedItems = new boolean[items.length];
+        for (int i = 0; i < items.length; i++) {
+            items[i] = lines.get(i).getName();
+            checkedItems[i] = holder.selectedItems.contains(lines.get(i).getItemId());
+        }
 
         builder.setMultiChoiceItems(items, checkedItems, (dialog, which, isChecked) -> {
             if (isChecked) {
-                holder.selectedItems.add(purchase.getItemIds().get(which));
+                holder.selectedItems.add(lines.get(which).getItemId());
             } else {
-                holder.selectedItems.remove(purchase.getItemIds().get(which));
+                holder.selectedItems.remove(lines.get(which).getItemId());
             }
             holder.returnItemsButton.setEnabled(!holder.selectedItems.isEmpty());
         });
@@ -123,55 +142,70 @@ public class PurchaseHistoryAdapter extends RecyclerView.Adapter<PurchaseHistory
     }
 
     private void returnSelectedItems(View view, Purchase purchase, ViewHolder holder) {
-        // Create a new list for remaining items
-        List<String> remainingItemIds = new ArrayList<>(purchase.getItemIds());
-        List<String> remainingItemNames = new ArrayList<>(purchase.getItemNames());
-
-        // Update shopping items status in Firebase
-        for (String itemId : holder.selectedItems) {
-            mDatabase.child("shopping_items").child(itemId).child("purchased").setValue(false);
-            mDatabase.child("shopping_items").child(itemId).child("purchasedBy").setValue(null);
-            mDatabase.child("shopping_items").child(itemId).child("purchaseDate").setValue(null);
-
-            // Remove item from remaining lists
-            int index = remainingItemIds.indexOf(itemId);
-            if (index != -1) {
-                remainingItemIds.remove(index);
-                remainingItemNames.remove(index);
-            }
-        }
-
-        // Update purchase with remaining items but keep the original total amount
-        purchase.setItemIds(remainingItemIds);
-        purchase.setItemNames(remainingItemNames);
-        // Note: We're not updating the total amount anymore to maintain the group purchase cost
-
-        // If no items remain, remove the purchase
-        if (remainingItemIds.isEmpty()) {
-            mDatabase.child("purchases").child(purchase.getId()).removeValue();
-        } else {
-            // Update the purchase with remaining items
-            mDatabase.child("purchases").child(purchase.getId()).setValue(purchase);
-        }
+        List<String> returnedIds = new ArrayList<>(holder.selectedItems);
 
         // Reset selection state
         holder.selectedItems.clear();
         holder.returnItemsButton.setEnabled(false);
+
+        // Each item comes back from its archived copy, so fields the purchase line doesn't keep survive
+        repository.loadArchivedItems(returnedIds, new ShoppingRepository.ItemsCallback() {
+            @Override
+            public void onItemsLoaded(List<ShoppingItem> items) {
+                Map<String, ShoppingItem> archived = new HashMap<>(items.size() * 4 / 3 + 1);
+                for (ShoppingItem item : items) {
+                    archived.put(item.getId(), item);
+                }
+                // Item resets and the purchase change go out in one atomic update
+                PurchaseReturn itemReturn = PurchaseReturn.build(purchase, returnedIds, archived);
+                if (itemReturn.getReturnedCount() == 0) return;
+                Map<String, Object> updates = itemReturn.getUpdates();
+                if (itemReturn.removesPurchase()) {
+                    // No items remain, take the purchase off the ledger too
+                    ShoppingRepository.addLedgerDeltas(updates, SpendingLedger.purchaseRemoved(purchase));
+                }
+                mDatabase.updateChildren(ModelMapper.toDatabaseUpdates(updates))
+                        .addOnFailureListener(e -> Toast.makeText(view.getContext(),
+                                "Failed to return items: " + e.getMessage(), Toast.LENGTH_SHORT).show());
+                // The row is left as it is, the purchases listener delivers the changed purchase
+            }
+
+            @Override
+            public void onFailure(String errorMessage) {
+                Toast.makeText(view.getContext(), "Failed to return items: " + errorMessage, Toast.LENGTH_SHORT).show();
+            }
+        });
     }
 
-    private void updatePurchaseAmount(Purchase purchase, double newAmount) {
-        purchase.setTotalAmount(newAmount);
-        mDatabase.child("purchases").child(purchase.getId()).setValue(purchase);
+    // Listed purchases are shared with the differ and the state store and never changed in place
+    private void updatePurchaseAmount(View view, Purchase purchase, Money newAmount) {
+        repository.updatePurchaseTotal(purchase, newAmount, new ShoppingRepository.RepositoryCallback() {
+            @Override
+            public void onSuccess() {
+            }
+
+            @Override
+            public void onFailure(String errorMessage) {
+                // Also when the total was changed elsewhere since this row was shown
+                Toast.makeText(view.getContext(), "Failed to update the total: " + errorMessage,
+                        Toast.LENGTH_SHORT).show();
+            }
+        });
     }
 
     @Override
     public int getItemCount() {
-        return purchases.size();
+        return differ.getCurrentList().size();
+    }
+
+    @Override
+    public long getItemId(int position) {
+        return stableIds.of(differ.getCurrentList().get(position).getId());
     }
 
     public void updatePurchases(List<Purchase> newPurchases) {
-        this.purchases = newPurchases;
-        notifyDataSetChanged();
+        // Copy so later changes to the caller's list can't race the background diff
+        differ.submitList(new ArrayList<>(newPurchases));
     }
 
     static class ViewHolder extends RecyclerView.ViewHolder {
@@ -182,7 +216,7 @@ public class PurchaseHistoryAdapter extends RecyclerView.Adapter<PurchaseHistory
         ImageButton editPriceButton;
         Button selectItemsButton;
         Button returnItemsButton;
-        List<String> selectedItems;
+        Set<String> selectedItems;
 
         ViewHolder(View itemView) {
             super(itemView);
@@ -193,7 +227,7 @@ public class PurchaseHistoryAdapter extends RecyclerView.Adapter<PurchaseHistory
             editPriceButton = itemView.findViewById(R.id.editPriceButton);
             selectItemsButton = itemView.findViewById(R.id.selectItemsButton);
             returnItemsButton = itemView.findViewById(R.id.returnItemsButton);
-            selectedItems = new ArrayList<>();
+            selectedItems = new LinkedHashSet<>();
         }
     }
 }
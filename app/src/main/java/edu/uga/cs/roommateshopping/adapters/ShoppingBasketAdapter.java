@@ -5,24 +5,38 @@ import android.view.View;
 import android.view.ViewGroup;
 import android.widget.ImageButton;
 import android.widget.TextView;
-import android.widget.Toast;
 
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.AsyncListDiffer;
 import androidx.recyclerview.widget.RecyclerView;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import edu.uga.cs.roommateshopping.R;
 import edu.uga.cs.roommateshopping.models.ShoppingItem;
-import edu.uga.cs.roommateshopping.services.ShoppingBasketServices;
 
 public class ShoppingBasketAdapter extends RecyclerView.Adapter<ShoppingBasketAdapter.ViewHolder> {
-    private final List<ShoppingItem> basketItems;
-    private final ShoppingBasketServices basketService;
+    // Diffs each submitted list on a background thread and dispatches only the changed rows
+    private final AsyncListDiffer<ShoppingItem> differ = new AsyncListDiffer<>(this, ShoppingItemDiffCallback.INSTANCE);
+    private final StableIds stableIds = new StableIds();
+    private final OnBasketItemActionListener actionListener;
+    private final ItemSelection selection = new ItemSelection();
+    private OnBasketSelectionListener selectionListener;
+
+    // The owner of the basket does the move and then submits the new basket
+    public interface OnBasketItemActionListener {
+        void onRemoveFromBasket(ShoppingItem item);
+    }
+
+    public interface OnBasketSelectionListener {
+        void onBasketSelectionChanged(int selectedCount);
+    }
 
-    public ShoppingBasketAdapter(List<ShoppingItem> basketItems) {
-        this.basketItems = basketItems;
-        this.basketService = new ShoppingBasketServices();
+    public ShoppingBasketAdapter(List<ShoppingItem> basketItems, OnBasketItemActionListener actionListener) {
+        this.actionListener = actionListener;
+        setHasStableIds(true);
+        updateItems(basketItems);
     }
 
     @NonNull
@@ -35,48 +49,70 @@ public class ShoppingBasketAdapter extends RecyclerView.Adapter<ShoppingBasketAd
 
     @Override
     public void onBindViewHolder(@NonNull ViewHolder holder, int position) {
-        ShoppingItem item = basketItems.get(position);
+        ShoppingItem item = differ.getCurrentList().get(position);
 
         holder.itemNameTextView.setText(item.getName());
         holder.itemQuantityTextView.setText(String.valueOf(item.getQuantity()));
+        holder.itemView.setActivated(selection.isSelected(item.getId()));
+
+        // Long press starts selecting items to move back together, taps then toggle
+        holder.itemView.setOnLongClickListener(v -> toggleSelection(holder));
+        holder.itemView.setOnClickListener(v -> {
+            if (selection.isActive()) toggleSelection(holder);
+        });
 
         // Move item to the shopping list
         holder.removeButton.setOnClickListener(v -> {
-            basketService.moveItemToShoppingList(item.getId(), item, new ShoppingBasketServices.DatabaseCallback() {
-                @Override
-                public void onSuccess(String message) {
-                    int currentPosition = holder.getAdapterPosition();
-                    if (currentPosition != RecyclerView.NO_POSITION) {
-                        // Remove the item from the local basket list
-                        basketItems.remove(currentPosition);
-
-                        // Notify the adapter about the removed item
-                        notifyItemRemoved(currentPosition);
-                        notifyItemRangeChanged(currentPosition, basketItems.size());
-
-                        // Inform the user of the successful operation
-                        Toast.makeText(v.getContext(), message, Toast.LENGTH_SHORT).show();
-                    }
-                }
-
-                @Override
-                public void onFailure(String errorMessage) {
-                    // Inform the user of the error
-                    Toast.makeText(v.getContext(), "Error: " + errorMessage, Toast.LENGTH_SHORT).show();
-                }
-            });
+            if (actionListener != null) actionListener.onRemoveFromBasket(item);
         });
     }
 
     @Override
     public int getItemCount() {
-        return basketItems.size();
+        return differ.getCurrentList().size();
+    }
+
+    @Override
+    public long getItemId(int position) {
+        return stableIds.of(differ.getCurrentList().get(position).getId());
+    }
+
+    private boolean toggleSelection(ViewHolder holder) {
+        int position = holder.getAdapterPosition();
+        if (position == RecyclerView.NO_POSITION) return false;
+        ShoppingItem item = differ.getCurrentList().get(position);
+        holder.itemView.setActivated(selection.toggle(item.getId()));
+        if (selectionListener != null) {
+            selectionListener.onBasketSelectionChanged(selection.size());
+        }
+        return true;
+    }
+
+    public void setSelectionListener(OnBasketSelectionListener selectionListener) {
+        this.selectionListener = selectionListener;
+    }
+
+    // Selected items in basket order
+    public List<ShoppingItem> getSelectedItems() {
+        return selection.selectedIn(differ.getCurrentList());
+    }
+
+    public void clearSelection() {
+        if (!selection.isActive()) return;
+        selection.clear();
+        notifyItemRangeChanged(0, getItemCount());
+        if (selectionListener != null) {
+            selectionListener.onBasketSelectionChanged(0);
+        }
+    }
+
+    public List<ShoppingItem> getItems() {
+        return differ.getCurrentList();
     }
 
     public void updateItems(List<ShoppingItem> newBasketItems) {
-        this.basketItems.clear();
-        this.basketItems.addAll(newBasketItems);
-        notifyDataSetChanged(); // Notify the adapter about data changes
+        // Copy so later changes to the caller's list can't race the background diff
+        differ.submitList(new ArrayList<>(newBasketItems));
     }
 
     static class ViewHolder extends RecyclerView.ViewHolder {
@@ -0,0 +1,24 @@
+package edu.uga.cs.roommateshopping.adapters;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.DiffUtil;
+
+import java.util.Objects;
+
+import edu.uga.cs.roommateshopping.models.ShoppingItem;
+
+// Identity is the database id, contents are the fields shown in a row
+public class ShoppingItemDiffCallback extends DiffUtil.ItemCallback<ShoppingItem> {
+    public static final ShoppingItemDiffCallback INSTANCE = new ShoppingItemDiffCallback();
+
+    @Override
+    public boolean areItemsTheSame(@NonNull ShoppingItem oldItem, @NonNull ShoppingItem newItem) {
+        return Objects.equals(oldItem.getId(), newItem.getId());
+    }
+
+    @Override
+    public boolean areContentsTheSame(@NonNull ShoppingItem oldItem, @NonNull ShoppingItem newItem) {
+        return Objects.equals(oldItem.getName(), newItem.getName())
+                && oldItem.getQuantity() == newItem.getQuantity();
+    }
+}
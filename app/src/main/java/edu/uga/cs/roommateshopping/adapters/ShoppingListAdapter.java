@@ -1,6 +1,8 @@
 package edu.uga.cs.roommateshopping.adapters;
 
 import android.app.AlertDialog;
+import android.os.Handler;
+import android.os.Looper;
 import android.text.InputType;
 import android.view.LayoutInflater;
 import android.view.View;
@@ -10,32 +12,71 @@ import android.widget.CheckBox;
 import android.widget.EditText;
 import android.widget.ImageButton;
 import android.widget.TextView;
-import android.widget.Toast;
 
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.google.firebase.database.FirebaseDatabase;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
 
 import edu.uga.cs.roommateshopping.R;
 import edu.uga.cs.roommateshopping.models.ShoppingItem;
-import edu.uga.cs.roommateshopping.adapters.ShoppingBasketAdapter;
-import edu.uga.cs.roommateshopping.services.ShoppingBasketServices;
+import edu.uga.cs.roommateshopping.services.ShoppingListSync;
+import edu.uga.cs.roommateshopping.services.ShoppingStorage;
+import edu.uga.cs.roommateshopping.services.WriteCoalescer;
 
-public class ShoppingListAdapter extends RecyclerView.Adapter<ShoppingListAdapter.ViewHolder> {
-    private List<ShoppingItem> shoppingItems;
+public class ShoppingListAdapter extends RecyclerView.Adapter<ShoppingListAdapter.ViewHolder>
+        implements ShoppingListSync.Listener {
+    // Bulk list replacements are diffed here so the main thread only dispatches the result
+    private static final Executor DIFF_EXECUTOR = Executors.newSingleThreadExecutor();
+    // Quantity strings for the common range, so binding doesn't build a new String each time
+    private static final String[] QUANTITY_LABELS = new String[100];
+    // Rebinds only the checkbox when the selection changes
+    private static final Object PAYLOAD_SELECTION = new Object();
+
+    static {
+        for (int i = 0; i < QUANTITY_LABELS.length; i++) {
+            QUANTITY_LABELS[i] = String.valueOf(i);
+        }
+    }
+
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final StableIds stableIds = new StableIds();
+    private final List<ShoppingItem> liveItems;  // List kept up to date by ShoppingListSync
+    private List<ShoppingItem> shoppingItems;    // List currently on screen
     private OnItemSelectionListener listener;
+    private final WriteCoalescer writeCoalescer;
+    private BindStats bindStats;
+    private Runnable onFilteredListStale;  // Run when the live list changes behind a filtered view
+    private final ItemSelection selection = new ItemSelection();
+    private int liveVersion;    // Bumped on every targeted update of liveItems
+    private int updateVersion;  // Bumped on every updateItems call
 
     public interface OnItemSelectionListener {
-        void onItemSelected(int position, boolean isSelected);
+        // The item itself, the row's position may be in a filtered list
+        void onItemSelected(ShoppingItem item, boolean isSelected);
+
+        // Bulk selection mode is active while selectedCount > 0
+        void onSelectionChanged(int selectedCount);
     }
 
-    public ShoppingListAdapter(List<ShoppingItem> items, OnItemSelectionListener listener) {
+    public ShoppingListAdapter(List<ShoppingItem> items, OnItemSelectionListener listener,
+                               WriteCoalescer writeCoalescer) {
+        this.liveItems = items;
         this.shoppingItems = items;
         this.listener = listener;
+        this.writeCoalescer = writeCoalescer;
+        setHasStableIds(true);
+    }
+
+    // Optional instrumentation, see FrameBindMonitor
+    public void setBindStats(BindStats bindStats) {
+        this.bindStats = bindStats;
     }
 
     @NonNull
@@ -43,61 +84,92 @@ public class ShoppingListAdapter extends RecyclerView.Adapter<ShoppingListAdapte
     public ViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
         View view = LayoutInflater.from(parent.getContext())
                 .inflate(R.layout.item_shopping_list, parent, false);
-        return new ViewHolder(view);
-    }
-
-    @Override
-    public void onBindViewHolder(@NonNull ViewHolder holder, int position) {
-        if (position >= shoppingItems.size()) return;
+        ViewHolder holder = new ViewHolder(view);
 
-        ShoppingItem item = shoppingItems.get(position);
-        if (item == null) return;
-
-        holder.itemNameTextView.setText(item.getName());
-        
-        // Set checkbox state without triggering listener
-        holder.itemCheckBox.setOnCheckedChangeListener(null);
-        holder.itemCheckBox.setChecked(false);
-        
+        // Listeners are created once per holder and look the item up when clicked,
+        // so binding a recycled row creates none
+        // Outside selection mode a tick moves the item straight to the basket,
+        // a long press starts selecting several items for one bulk move
         holder.itemCheckBox.setOnClickListener(v -> {
-            int pos = holder.getAdapterPosition();
-            if (pos != RecyclerView.NO_POSITION && pos < shoppingItems.size() && listener != null) {
-                listener.onItemSelected(pos, true);
+            if (selection.isActive()) {
+                toggleSelection(holder);
+                return;
+            }
+            ShoppingItem item = itemAt(holder);
+            if (item != null && listener != null) {
+                listener.onItemSelected(item, true);
             }
         });
-
         holder.itemView.setOnClickListener(v -> {
-            int pos = holder.getAdapterPosition();
-            if (pos != RecyclerView.NO_POSITION && pos < shoppingItems.size()) {
+            if (selection.isActive()) {
+                toggleSelection(holder);
+            } else if (itemAt(holder) != null) {
                 holder.itemCheckBox.setChecked(true);
             }
         });
+        holder.itemView.setOnLongClickListener(v -> toggleSelection(holder));
+        holder.editButton.setOnClickListener(v -> {
+            ShoppingItem item = itemAt(holder);
+            if (item != null) showEditDialog(v, item);
+        });
+        holder.deleteButton.setOnClickListener(v -> {
+            ShoppingItem item = itemAt(holder);
+            if (item != null) showDeleteDialog(v, item);
+        });
+        holder.addToBasketButton.setOnClickListener(v -> {
+            ShoppingItem item = itemAt(holder);
+            if (item != null && listener != null) listener.onItemSelected(item, true);
+        });
+        return holder;
+    }
 
-        holder.editButton.setOnClickListener(v -> showEditDialog(v, item));
-        holder.deleteButton.setOnClickListener(v -> showDeleteDialog(v, item));
+    @Override
+    public void onBindViewHolder(@NonNull ViewHolder holder, int position, @NonNull List<Object> payloads) {
+        if (payloads.contains(PAYLOAD_SELECTION) && position < shoppingItems.size()) {
+            holder.itemCheckBox.setChecked(selection.isSelected(shoppingItems.get(position).getId()));
+            return;
+        }
+        onBindViewHolder(holder, position);
+    }
 
-        holder.itemQuantityTextView.setText(String.valueOf(item.getQuantity()));
+    @Override
+    public void onBindViewHolder(@NonNull ViewHolder holder, int position) {
+        if (bindStats != null) bindStats.begin();
 
-        holder.itemQuantityTextView.setText(String.valueOf(item.getQuantity()));
+        ShoppingItem item = position < shoppingItems.size() ? shoppingItems.get(position) : null;
+        if (item != null) {
+            holder.itemNameTextView.setText(item.getName());
+            holder.itemQuantityTextView.setText(quantityLabel(item.getQuantity()));
 
-        holder.addToBasketButton.setOnClickListener(v -> {
-            ShoppingBasketServices basketService = new ShoppingBasketServices();
-            basketService.moveItemToBasket(item.getId(), item, new ShoppingBasketServices.DatabaseCallback() {
-                @Override
-                public void onSuccess(String message) {
-                    Toast.makeText(v.getContext(), message, Toast.LENGTH_SHORT).show();
-                    // Remove the item from the list and notify the adapter
-                    shoppingItems.remove(position);
-                    notifyItemRemoved(position);
-                    notifyItemRangeChanged(position, shoppingItems.size());
-                }
+            // Only a click moves the item, setting the state here triggers nothing
+            holder.itemCheckBox.setChecked(selection.isSelected(item.getId()));
+        }
 
-                @Override
-                public void onFailure(String errorMessage) {
-                    Toast.makeText(v.getContext(), "Error: " + errorMessage, Toast.LENGTH_SHORT).show();
-                }
-            });
-        });
+        if (bindStats != null) bindStats.end();
+    }
+
+    private boolean toggleSelection(ViewHolder holder) {
+        ShoppingItem item = itemAt(holder);
+        if (item == null) return false;
+        selection.toggle(item.getId());
+        notifyItemChanged(holder.getAdapterPosition(), PAYLOAD_SELECTION);
+        if (listener != null) {
+            listener.onSelectionChanged(selection.size());
+        }
+        return true;
+    }
+
+    private ShoppingItem itemAt(ViewHolder holder) {
+        int pos = holder.getAdapterPosition();
+        if (pos == RecyclerView.NO_POSITION || pos >= shoppingItems.size()) return null;
+        return shoppingItems.get(pos);
+    }
+
+    private static String quantityLabel(int quantity) {
+        if (quantity >= 0 && quantity < QUANTITY_LABELS.length) {
+            return QUANTITY_LABELS[quantity];
+        }
+        return String.valueOf(quantity);
     }
 
     private void showEditDialog(View view, ShoppingItem item) {
@@ -112,11 +184,8 @@ public class ShoppingListAdapter extends RecyclerView.Adapter<ShoppingListAdapte
         builder.setPositiveButton("Save", (dialog, which) -> {
             String newName = input.getText().toString().trim();
             if (!newName.isEmpty()) {
-                FirebaseDatabase.getInstance().getReference()
-                        .child("shopping_items")
-                        .child(item.getId())
-                        .child("name")
-                        .setValue(newName);
+                // Repeated edits to the same item go out as one write
+                writeCoalescer.set(ShoppingStorage.itemPath(item.getId()), "name", newName);
             }
         });
         builder.setNegativeButton("Cancel", (dialog, which) -> dialog.cancel());
@@ -129,6 +198,7 @@ public class ShoppingListAdapter extends RecyclerView.Adapter<ShoppingListAdapte
                 .setTitle("Delete Item")
                 .setMessage("Are you sure you want to delete this item?")
                 .setPositiveButton("Yes", (dialog, which) -> {
+                    writeCoalescer.discard(ShoppingStorage.itemPath(item.getId()));
                     FirebaseDatabase.getInstance().getReference()
                             .child("shopping_items")
                             .child(item.getId())
@@ -143,32 +213,140 @@ public class ShoppingListAdapter extends RecyclerView.Adapter<ShoppingListAdapte
         return shoppingItems != null ? shoppingItems.size() : 0;
     }
 
+    @Override
+    public long getItemId(int position) {
+        return stableIds.of(shoppingItems.get(position).getId());
+    }
+
+    // Called after a live change while another list (e.g. search results) is on
+    // screen, so the owner can build that list again
+    public void setOnFilteredListStale(Runnable onFilteredListStale) {
+        this.onFilteredListStale = onFilteredListStale;
+    }
+
+    // Targeted updates pushed by ShoppingListSync, which owns the live list.
+    // They are only forwarded while the live list is the one on screen.
+    @Override
+    public void onItemInserted(int position) {
+        liveVersion++;
+        if (shoppingItems == liveItems) notifyItemInserted(position);
+        else if (onFilteredListStale != null) onFilteredListStale.run();
+    }
+
+    @Override
+    public void onItemChanged(int position) {
+        liveVersion++;
+        if (shoppingItems == liveItems) notifyItemChanged(position);
+        else if (onFilteredListStale != null) onFilteredListStale.run();
+    }
+
+    @Override
+    public void onItemRemoved(int position) {
+        liveVersion++;
+        if (shoppingItems == liveItems) notifyItemRemoved(position);
+        else if (onFilteredListStale != null) onFilteredListStale.run();
+    }
+
+    @Override
+    public void onItemMoved(int fromPosition, int toPosition) {
+        liveVersion++;
+        if (shoppingItems == liveItems) notifyItemMoved(fromPosition, toPosition);
+        else if (onFilteredListStale != null) onFilteredListStale.run();
+    }
+
+    @Override
+    public void onItemRangeInserted(int positionStart, int itemCount) {
+        liveVersion++;
+        if (shoppingItems == liveItems) notifyItemRangeInserted(positionStart, itemCount);
+        else if (onFilteredListStale != null) onFilteredListStale.run();
+    }
+
+    @Override
+    public void onItemRangeRemoved(int positionStart, int itemCount) {
+        liveVersion++;
+        if (shoppingItems == liveItems) notifyItemRangeRemoved(positionStart, itemCount);
+        else if (onFilteredListStale != null) onFilteredListStale.run();
+    }
+
+    // Shows a different list, diffed off the main thread; pass the live list to return to it
     public void updateItems(List<ShoppingItem> items) {
-        this.shoppingItems = items;
-        notifyDataSetChanged();
+        final int version = ++updateVersion;
+        final int startLiveVersion = liveVersion;
+        final boolean toLive = items == liveItems;
+        final List<ShoppingItem> target = toLive ? liveItems : new ArrayList<>(items);
+        final List<ShoppingItem> oldSnapshot = new ArrayList<>(shoppingItems);
+        final List<ShoppingItem> newSnapshot = new ArrayList<>(target);
+
+        DIFF_EXECUTOR.execute(() -> {
+            DiffUtil.DiffResult result = DiffUtil.calculateDiff(new ItemListDiff(oldSnapshot, newSnapshot));
+            mainHandler.post(() -> {
+                if (version != updateVersion) return;  // Superseded by a newer call
+                boolean readsLive = toLive || shoppingItems == liveItems;
+                if (readsLive && liveVersion != startLiveVersion) {
+                    // The live list moved on while we were diffing, start over
+                    updateItems(toLive ? liveItems : target);
+                    return;
+                }
+                shoppingItems = target;
+                result.dispatchUpdatesTo(ShoppingListAdapter.this);
+            });
+        });
     }
 
+    // Selected items in list order
     public List<ShoppingItem> getSelectedItems() {
-        return shoppingItems.stream()
-                .filter(ShoppingItem::isSelected)
-                .collect(java.util.stream.Collectors.toList());
+        return selection.selectedIn(shoppingItems);
     }
 
-    public ArrayList<Integer> getSelectedPositions() {
-        ArrayList<Integer> selectedPositions = new ArrayList<>();
-        for (int i = 0; i < shoppingItems.size(); i++) {
-            if (shoppingItems.get(i).isSelected()) {
-                selectedPositions.add(i);
-            }
+    public ArrayList<String> getSelectedIds() {
+        return selection.getSelectedIds();
+    }
+
+    // Ids are restored even before their rows have loaded
+    public void restoreSelection(List<String> selectedIds) {
+        selection.selectAll(selectedIds);
+        notifyItemRangeChanged(0, getItemCount(), PAYLOAD_SELECTION);
+        if (listener != null) {
+            listener.onSelectionChanged(selection.size());
         }
-        return selectedPositions;
     }
 
-    public void restoreSelectedItems(ArrayList<Integer> selectedPositions) {
-        for (Integer position : selectedPositions) {
-            if (position < shoppingItems.size()) {
-                shoppingItems.get(position).setSelected(true);
-            }
+    public void clearSelection() {
+        if (!selection.isActive()) return;
+        selection.clear();
+        notifyItemRangeChanged(0, getItemCount(), PAYLOAD_SELECTION);
+        if (listener != null) {
+            listener.onSelectionChanged(0);
+        }
+    }
+
+    private static class ItemListDiff extends DiffUtil.Callback {
+        private final List<ShoppingItem> oldItems;
+        private final List<ShoppingItem> newItems;
+
+        ItemListDiff(List<ShoppingItem> oldItems, List<ShoppingItem> newItems) {
+            this.oldItems = oldItems;
+            this.newItems = newItems;
+        }
+
+        @Override
+        public int getOldListSize() {
+            return oldItems.size();
+        }
+
+        @Override
+        public int getNewListSize() {
+            return newItems.size();
+        }
+
+        @Override
+        public boolean areItemsTheSame(int oldPosition, int newPosition) {
+            return ShoppingItemDiffCallback.INSTANCE.areItemsTheSame(oldItems.get(oldPosition), newItems.get(newPosition));
+        }
+
+        @Override
+        public boolean areContentsTheSame(int oldPosition, int newPosition) {
+            return ShoppingItemDiffCallback.INSTANCE.areContentsTheSame(oldItems.get(oldPosition), newItems.get(newPosition));
         }
     }
 
@@ -0,0 +1,18 @@
+package edu.uga.cs.roommateshopping.adapters;
+
+import java.util.HashMap;
+import java.util.Map;
+
+// Hands out a stable RecyclerView id for each database key an adapter has shown
+public class StableIds {
+    private final Map<String, Long> ids = new HashMap<>();
+
+    public long of(String key) {
+        Long id = ids.get(key);
+        if (id == null) {
+            id = (long) ids.size();
+            ids.put(key, id);
+        }
+        return id;
+    }
+}
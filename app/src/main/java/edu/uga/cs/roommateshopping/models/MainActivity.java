@@ -1,7 +1,13 @@
 package edu.uga.cs.roomateshoppingapp;
 
 import android.content.Intent;
+import android.content.pm.ApplicationInfo;
 import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+import android.text.Editable;
+import android.text.TextWatcher;
+import android.util.Log;
 import android.view.View;
 import android.widget.Button;
 import android.widget.EditText;
@@ -14,47 +20,69 @@ import androidx.appcompat.app.AppCompatActivity;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
-import com.google.android.gms.tasks.Task;
-import com.google.android.gms.tasks.Tasks;
 import com.google.firebase.auth.FirebaseAuth;
-import com.google.firebase.database.DataSnapshot;
-import com.google.firebase.database.DatabaseError;
 import com.google.firebase.database.DatabaseReference;
-import com.google.firebase.database.FirebaseDatabase;
-import com.google.firebase.database.ValueEventListener;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 import edu.uga.cs.roomateshoppingapp.adapters.PurchaseHistoryAdapter;
 import edu.uga.cs.roomateshoppingapp.adapters.ShoppingBasketAdapter;
 import edu.uga.cs.roomateshoppingapp.adapters.ShoppingListAdapter;
+import edu.uga.cs.roommateshopping.PurchaseHistoryActivity;
+import edu.uga.cs.roommateshopping.adapters.FrameBindMonitor;
+import edu.uga.cs.roommateshopping.models.ModelMapper;
+import edu.uga.cs.roommateshopping.models.Money;
 import edu.uga.cs.roomateshoppingapp.models.Purchase;
 import edu.uga.cs.roomateshoppingapp.models.ShoppingItem;
+import edu.uga.cs.roommateshopping.services.FirebaseShoppingStorage;
+import edu.uga.cs.roommateshopping.services.ShoppingBasketServices;
+import edu.uga.cs.roommateshopping.services.ShoppingListSync;
+import edu.uga.cs.roommateshopping.services.ShoppingRepository;
+import edu.uga.cs.roommateshopping.services.ShoppingStateStore;
+import edu.uga.cs.roommateshopping.services.ShoppingStorage;
+import edu.uga.cs.roommateshopping.services.SubscriptionLifecycle;
+import edu.uga.cs.roommateshopping.services.SubscriptionManager;
+import edu.uga.cs.roommateshopping.services.WriteCoalescer;
 
 public class MainActivity extends AppCompatActivity implements ShoppingListAdapter.OnItemSelectionListener, ShoppingBasketAdapter.OnBasketItemActionListener {
     private static final String TAG = "MainActivity";
+    // Field writes issued this close together are sent as one update
+    private static final long WRITE_WINDOW_MS = 300;
+    // Quiet period after the last keystroke before the list is filtered
+    private static final long SEARCH_DELAY_MS = 150;
     private EditText itemNameEditText;
+    private EditText searchEditText;
     private Button addItemButton;
     private Button logoutButton;
     private Button checkoutButton;
     private Button settleCostButton;
     private Button viewPurchaseHistoryButton;
+    private Button moveSelectedButton;
+    private Button returnSelectedButton;
     private RecyclerView shoppingListRecyclerView;
     private RecyclerView shoppingBasketRecyclerView;
     private TextView userEmailTextView;
     
     private ShoppingListAdapter shoppingListAdapter;
     private ShoppingBasketAdapter shoppingBasketAdapter;
+    private ShoppingBasketServices basketService;
+    private WriteCoalescer writeCoalescer;
+    private FrameBindMonitor bindMonitor;
     
     private FirebaseAuth mAuth;
+    private ShoppingRepository repository;
     private DatabaseReference mDatabase;
+    private ShoppingStateStore state;
     
+    private ShoppingListSync shoppingListSync;
+    private final Handler searchHandler = new Handler(Looper.getMainLooper());
+    private final Runnable applySearch = this::applySearch;
     private List<ShoppingItem> shoppingList;
     private List<ShoppingItem> shoppingBasket;
     
-    private ValueEventListener shoppingListListener;
-    private ValueEventListener purchaseHistoryListener;
+    private SubscriptionManager.Subscription<ShoppingListSync> shoppingListSubscription;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -63,15 +91,20 @@ public class MainActivity extends AppCompatActivity implements ShoppingListAdapt
 
         // Initialize Firebase
         mAuth = FirebaseAuth.getInstance();
-        mDatabase = FirebaseDatabase.getInstance().getReference();
+        repository = ShoppingRepository.getInstance();
+        mDatabase = repository.getRoot();
+        state = repository.getState();
 
         // Initialize views
         itemNameEditText = findViewById(R.id.itemNameEditText);
+        searchEditText = findViewById(R.id.searchEditText);
         addItemButton = findViewById(R.id.addItemButton);
         logoutButton = findViewById(R.id.logoutButton);
         checkoutButton = findViewById(R.id.checkoutButton);
         settleCostButton = findViewById(R.id.settleCostButton);
         viewPurchaseHistoryButton = findViewById(R.id.viewPurchaseHistoryButton);
+        moveSelectedButton = findViewById(R.id.moveSelectedButton);
+        returnSelectedButton = findViewById(R.id.returnSelectedButton);
         shoppingListRecyclerView = findViewById(R.id.shoppingListRecyclerView);
         shoppingBasketRecyclerView = findViewById(R.id.shoppingBasketRecyclerView);
         userEmailTextView = findViewById(R.id.userEmailTextView);
@@ -81,17 +114,31 @@ public class MainActivity extends AppCompatActivity implements ShoppingListAdapt
             userEmailTextView.setText(mAuth.getCurrentUser().getEmail());
         }
 
-        // Initialize lists
-        shoppingList = new ArrayList<>();
-        shoppingBasket = new ArrayList<>();
+        // Initialize lists, both live in the shared state store, so a recreated
+        // activity starts with the items already loaded. The shopping list is
+        // owned by the sync engine, the basket is changed through the store.
+        shoppingListSync = state.getOpenItems();
+        shoppingList = shoppingListSync.getItems();
+        shoppingBasket = state.getBasket();
         
         // Set up RecyclerViews
         shoppingListRecyclerView.setLayoutManager(new LinearLayoutManager(this));
         shoppingBasketRecyclerView.setLayoutManager(new LinearLayoutManager(this));
         
         // Initialize adapters
-        shoppingListAdapter = new ShoppingListAdapter(shoppingList, this);
+        basketService = new ShoppingBasketServices();
+        writeCoalescer = new WriteCoalescer(new FirebaseShoppingStorage(), WRITE_WINDOW_MS);
+        shoppingListAdapter = new ShoppingListAdapter(shoppingList, this, writeCoalescer);
         shoppingBasketAdapter = new ShoppingBasketAdapter(shoppingBasket, this);
+        shoppingListSync.setListener(shoppingListAdapter);
+        shoppingBasketAdapter.setSelectionListener(this::onBasketSelectionChanged);
+        shoppingListAdapter.setOnFilteredListStale(this::scheduleSearch);
+
+        // Per-frame bind counters in debuggable builds
+        if ((getApplicationInfo().flags & ApplicationInfo.FLAG_DEBUGGABLE) != 0) {
+            bindMonitor = new FrameBindMonitor(TAG);
+            shoppingListAdapter.setBindStats(bindMonitor.getStats());
+        }
         
         // Set adapters
         shoppingListRecyclerView.setAdapter(shoppingListAdapter);
@@ -99,28 +146,28 @@ public class MainActivity extends AppCompatActivity implements ShoppingListAdapt
 
         // Restore shopping basket state
         if (savedInstanceState != null) {
+            ArrayList<String> selectedItemIds = savedInstanceState.getStringArrayList("selected_item_ids");
+            if (selectedItemIds != null) {
+                shoppingListAdapter.restoreSelection(selectedItemIds);
+            }
+            // Only needed when the process was killed, otherwise the store still has the basket
             ArrayList<String> basketItemIds = savedInstanceState.getStringArrayList("shopping_basket_ids");
-            if (basketItemIds != null) {
-                for (String itemId : basketItemIds) {
-                    mDatabase.child("shopping_items").child(itemId).addListenerForSingleValueEvent(new ValueEventListener() {
-                        @Override
-                        public void onDataChange(@NonNull DataSnapshot dataSnapshot) {
-                            ShoppingItem item = dataSnapshot.getValue(ShoppingItem.class);
-                            if (item != null) {
-                                item.setId(dataSnapshot.getKey()); // Make sure to set the ID
-                                shoppingBasket.add(item);
-                                shoppingBasketAdapter.notifyItemInserted(shoppingBasket.size() - 1);
-                            }
-                        }
-
-                        @Override
-                        public void onCancelled(@NonNull DatabaseError error) {
-                            Toast.makeText(MainActivity.this, 
-                                "Failed to load shopping basket", 
-                                Toast.LENGTH_SHORT).show();
-                        }
-                    });
-                }
+            if (basketItemIds != null && shoppingBasket.isEmpty() && mAuth.getCurrentUser() != null) {
+                // One read for the whole basket, published to the adapter once
+                repository.loadBasket(mAuth.getCurrentUser().getUid(), basketItemIds, new ShoppingRepository.ItemsCallback() {
+                    @Override
+                    public void onItemsLoaded(List<ShoppingItem> items) {
+                        state.setBasket(items);
+                        shoppingBasketAdapter.updateItems(shoppingBasket);
+                    }
+
+                    @Override
+                    public void onFailure(String errorMessage) {
+                        Toast.makeText(MainActivity.this, 
+                            "Failed to load shopping basket", 
+                            Toast.LENGTH_SHORT).show();
+                    }
+                });
             }
         }
 
@@ -129,6 +176,20 @@ public class MainActivity extends AppCompatActivity implements ShoppingListAdapt
         logoutButton.setOnClickListener(v -> logout());
         checkoutButton.setOnClickListener(v -> checkout());
         settleCostButton.setOnClickListener(v -> startSettleCost());
+        moveSelectedButton.setOnClickListener(v -> moveSelectedToBasket());
+        searchEditText.addTextChangedListener(new TextWatcher() {
+            @Override
+            public void beforeTextChanged(CharSequence s, int start, int count, int after) {}
+
+            @Override
+            public void onTextChanged(CharSequence s, int start, int before, int count) {}
+
+            @Override
+            public void afterTextChanged(Editable s) {
+                scheduleSearch();
+            }
+        });
+        returnSelectedButton.setOnClickListener(v -> returnSelectedToList());
         viewPurchaseHistoryButton.setOnClickListener(v -> {
             Intent intent = new Intent(MainActivity.this, PurchaseHistoryActivity.class);
             startActivity(intent);
@@ -136,24 +197,61 @@ public class MainActivity extends AppCompatActivity implements ShoppingListAdapt
 
         // Load data
         loadShoppingList();
-        loadPurchaseHistory();
+    }
+
+    @Override
+    protected void onResume() {
+        super.onResume();
+        if (bindMonitor != null) {
+            bindMonitor.start();
+            Log.d(TAG, "Live listeners: " + repository.getSubscriptions().getActiveListenerCount());
+        }
+    }
+
+    @Override
+    protected void onPause() {
+        super.onPause();
+        if (bindMonitor != null) bindMonitor.stop();
+        // Don't leave edits waiting on a window while the app may be killed
+        writeCoalescer.flush();
+    }
+
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        searchHandler.removeCallbacks(applySearch);
+        // The sync outlives this screen, don't let it hold on to the adapter and with it the activity
+        shoppingListSync.removeListener(shoppingListAdapter);
+        shoppingListAdapter.setOnFilteredListStale(null);
+        writeCoalescer.shutdown();
+    }
+
+    // Filters once typing (or a burst of live changes) pauses, not on every change
+    private void scheduleSearch() {
+        searchHandler.removeCallbacks(applySearch);
+        searchHandler.postDelayed(applySearch, SEARCH_DELAY_MS);
+    }
+
+    // Matches come from the sync engine's name index, no scan of the list
+    private void applySearch() {
+        String query = searchEditText.getText().toString().trim();
+        if (query.isEmpty()) {
+            shoppingListAdapter.updateItems(shoppingList);
+        } else {
+            shoppingListAdapter.updateItems(shoppingListSync.search(query));
+        }
     }
 
     @Override
     protected void onSaveInstanceState(@NonNull Bundle outState) {
         super.onSaveInstanceState(outState);
-        // Save selected items positions
+        // Save selected item ids, positions shift as the live list changes
         if (shoppingListAdapter != null) {
-            ArrayList<Integer> selectedPositions = shoppingListAdapter.getSelectedPositions();
-            outState.putIntegerArrayList("selectedPositions", selectedPositions);
+            outState.putStringArrayList("selected_item_ids", shoppingListAdapter.getSelectedIds());
         }
         // Save shopping basket items
         if (shoppingBasket != null && !shoppingBasket.isEmpty()) {
-            ArrayList<String> basketItemIds = new ArrayList<>();
-            for (ShoppingItem item : shoppingBasket) {
-                basketItemIds.add(item.getId());
-            }
-            outState.putStringArrayList("shopping_basket_ids", basketItemIds);
+            outState.putStringArrayList("shopping_basket_ids", state.getBasketIds());
         }
     }
 
@@ -165,108 +263,182 @@ public class MainActivity extends AppCompatActivity implements ShoppingListAdapt
         }
 
         ShoppingItem newItem = new ShoppingItem(itemName);
-        String itemId = mDatabase.child("shopping_items").push().getKey();
-        newItem.setId(itemId);
-
-        mDatabase.child("shopping_items").child(itemId).setValue(newItem)
-                .addOnCompleteListener(task -> {
-                    if (task.isSuccessful()) {
-                        itemNameEditText.setText("");
-                        Toast.makeText(MainActivity.this, "Item added successfully", Toast.LENGTH_SHORT).show();
-                    } else {
-                        Toast.makeText(MainActivity.this, "Failed to add item", Toast.LENGTH_SHORT).show();
-                    }
-                });
+        newItem.setId(repository.newItemId());
+
+        // The item shows up in the list from the local write right away, even offline;
+        // the callback only fires once the server has it
+        itemNameEditText.setText("");
+        repository.addItem(newItem, new ShoppingRepository.RepositoryCallback() {
+            @Override
+            public void onSuccess() {
+                Toast.makeText(MainActivity.this, "Item added successfully", Toast.LENGTH_SHORT).show();
+            }
+
+            @Override
+            public void onFailure(String errorMessage) {
+                Toast.makeText(MainActivity.this, "Failed to add item", Toast.LENGTH_SHORT).show();
+            }
+        });
     }
 
     private void loadShoppingList() {
         if (mAuth.getCurrentUser() == null) return;
 
-        if (shoppingListListener != null) {
-            mDatabase.child("shopping_items").removeEventListener(shoppingListListener);
-        }
+        // Moves data older versions left in the old layout: purchased items once per
+        // database, this user's basket once per user
+        repository.migrateLayoutIfNeeded(mAuth.getCurrentUser().getUid(), new ShoppingRepository.RepositoryCallback() {
+            @Override
+            public void onSuccess() {
+            }
 
-        shoppingListListener = mDatabase.child("shopping_items")
-                .orderByChild("purchased")
-                .equalTo(false)
-                .addValueEventListener(new ValueEventListener() {
+            @Override
+            public void onFailure(String errorMessage) {
+                Log.w(TAG, "Layout migration failed: " + errorMessage);
+            }
+        });
+
+        // Child events only carry the item that changed, so each one is
+        // deserialized once and turned into a single targeted adapter update.
+        // Cached items are delivered first, then the server's changes.
+        // The listener is attached only while this screen is started.
+        shoppingListSubscription = repository.subscribeToShoppingList(
+                new SubscriptionManager.Observer<ShoppingListSync>() {
                     @Override
-                    public void onDataChange(@NonNull DataSnapshot dataSnapshot) {
-                        shoppingList.clear();
-                        
-                        for (DataSnapshot snapshot : dataSnapshot.getChildren()) {
-                            ShoppingItem item = snapshot.getValue(ShoppingItem.class);
-                            if (item != null) {
-                                item.setId(snapshot.getKey()); // Make sure to set the ID
-                                shoppingList.add(item);
-                            }
-                        }
-                        
-                        shoppingListAdapter.notifyDataSetChanged();
+                    public void onValue(ShoppingListSync sync) {
+                        // Updates already reached the adapter through the sync
                     }
 
                     @Override
-                    public void onCancelled(@NonNull DatabaseError error) {
-                        Toast.makeText(MainActivity.this, 
-                            "Failed to load shopping list", 
+                    public void onError(String errorMessage) {
+                        Toast.makeText(MainActivity.this,
+                            "Failed to load shopping list",
                             Toast.LENGTH_SHORT).show();
                     }
                 });
+        SubscriptionLifecycle.bind(this, shoppingListSubscription);
     }
 
-    private void loadPurchaseHistory() {
-        if (purchaseHistoryListener != null) {
-            mDatabase.child("purchases").removeEventListener(purchaseHistoryListener);
-        }
-        
-        purchaseHistoryListener = mDatabase.child("purchases")
-                .orderByChild("purchaseDate")
-                .addValueEventListener(new ValueEventListener() {
-                    @Override
-                    public void onDataChange(@NonNull DataSnapshot dataSnapshot) {
-                        // Do nothing
-                    }
+    // Moves show in both lists as soon as they are issued, the way the live list shows its own
+    // local changes even offline, and are put back if the write fails. The move itself is one
+    // atomic write, so a restore or checkout finds the item in the basket
+    @Override
+    public void onItemSelected(ShoppingItem selected, boolean isSelected) {
+        if (selected == null) return;
+        ShoppingItem item = withPendingEdits(Collections.singletonList(selected)).get(0);
+        state.moveToBasket(item);
+        shoppingBasketAdapter.updateItems(shoppingBasket);
+        basketService.moveItemToBasket(item.getId(), item, new ShoppingBasketServices.DatabaseCallback() {
+            @Override
+            public void onSuccess(String message) {
+                Toast.makeText(MainActivity.this, message, Toast.LENGTH_SHORT).show();
+            }
 
-                    @Override
-                    public void onCancelled(@NonNull DatabaseError error) {
-                        Toast.makeText(MainActivity.this, 
-                            "Failed to load purchase history", 
-                            Toast.LENGTH_SHORT).show();
-                    }
-                });
+            @Override
+            public void onFailure(String errorMessage) {
+                state.removeFromBasket(Collections.singletonList(item));
+                shoppingBasketAdapter.updateItems(shoppingBasket);
+                shoppingListSync.append(item);
+                Toast.makeText(MainActivity.this, "Error: " + errorMessage, Toast.LENGTH_SHORT).show();
+            }
+        });
     }
 
     @Override
-    public void onItemSelected(int position, boolean isSelected) {
-        if (position < 0 || position >= shoppingList.size()) return;
-        
-        try {
-            ShoppingItem item = shoppingList.get(position);
-            if (item == null) return;
-            
-            // Remove from shopping list first
-            shoppingList.remove(position);
-            shoppingListAdapter.notifyItemRemoved(position);
-            
-            // Then add to basket
-            shoppingBasket.add(item);
-            shoppingBasketAdapter.notifyItemInserted(shoppingBasket.size() - 1);
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
+    public void onRemoveFromBasket(ShoppingItem item) {
+        // The store's basket is the one checkout reads, not the adapter's copy
+        state.removeFromBasket(Collections.singletonList(item));
+        shoppingBasketAdapter.updateItems(shoppingBasket);
+        shoppingListSync.append(item);
+        basketService.moveItemToShoppingList(item.getId(), item, new ShoppingBasketServices.DatabaseCallback() {
+            @Override
+            public void onSuccess(String message) {
+                Toast.makeText(MainActivity.this, message, Toast.LENGTH_SHORT).show();
+            }
+
+            @Override
+            public void onFailure(String errorMessage) {
+                shoppingListSync.applyRemoved(item.getId());
+                state.addToBasket(Collections.singletonList(item));
+                shoppingBasketAdapter.updateItems(shoppingBasket);
+                Toast.makeText(MainActivity.this, "Error: " + errorMessage, Toast.LENGTH_SHORT).show();
+            }
+        });
     }
 
     @Override
-    public void onRemoveFromBasket(int position) {
-        try {
-            ShoppingItem item = shoppingBasket.get(position);
-            shoppingBasket.remove(position);
-            shoppingList.add(item);
-            shoppingBasketAdapter.notifyItemRemoved(position);
-            shoppingListAdapter.notifyItemInserted(shoppingList.size() - 1);
-        } catch (Exception e) {
-            e.printStackTrace();
+    public void onSelectionChanged(int selectedCount) {
+        moveSelectedButton.setVisibility(selectedCount > 0 ? View.VISIBLE : View.GONE);
+        moveSelectedButton.setText("MOVE " + selectedCount + " TO BASKET");
+    }
+
+    private void onBasketSelectionChanged(int selectedCount) {
+        returnSelectedButton.setVisibility(selectedCount > 0 ? View.VISIBLE : View.GONE);
+        returnSelectedButton.setText("RETURN " + selectedCount);
+    }
+
+    // One write for the whole selection and one update per list
+    private void moveSelectedToBasket() {
+        List<ShoppingItem> selected = withPendingEdits(shoppingListAdapter.getSelectedItems());
+        if (selected.isEmpty()) return;
+        List<String> ids = new ArrayList<>(selected.size());
+        for (ShoppingItem item : selected) {
+            ids.add(item.getId());
         }
+        shoppingListAdapter.clearSelection();
+        shoppingListSync.applyRemovedAll(ids);
+        state.addToBasket(selected);
+        shoppingBasketAdapter.updateItems(shoppingBasket);
+        basketService.moveItemsToBasket(selected, new ShoppingBasketServices.DatabaseCallback() {
+            @Override
+            public void onSuccess(String message) {
+                Toast.makeText(MainActivity.this, message, Toast.LENGTH_SHORT).show();
+            }
+
+            @Override
+            public void onFailure(String errorMessage) {
+                state.removeFromBasket(selected);
+                shoppingBasketAdapter.updateItems(shoppingBasket);
+                shoppingListSync.appendAll(selected);
+                Toast.makeText(MainActivity.this, "Error: " + errorMessage, Toast.LENGTH_SHORT).show();
+            }
+        });
+    }
+
+    // Edits still waiting on the write window go into the moved copies and so into the move's
+    // own write; flushed separately, the move would write the old values over them
+    private List<ShoppingItem> withPendingEdits(List<ShoppingItem> items) {
+        List<ShoppingItem> edited = new ArrayList<>(items.size());
+        for (ShoppingItem item : items) {
+            edited.add(ModelMapper.withFields(item, writeCoalescer.take(ShoppingStorage.itemPath(item.getId()))));
+        }
+        return edited;
+    }
+
+    private void returnSelectedToList() {
+        List<ShoppingItem> selected = shoppingBasketAdapter.getSelectedItems();
+        if (selected.isEmpty()) return;
+        shoppingBasketAdapter.clearSelection();
+        state.removeFromBasket(selected);
+        shoppingBasketAdapter.updateItems(shoppingBasket);
+        shoppingListSync.appendAll(selected);
+        basketService.moveItemsToShoppingList(selected, new ShoppingBasketServices.DatabaseCallback() {
+            @Override
+            public void onSuccess(String message) {
+                Toast.makeText(MainActivity.this, message, Toast.LENGTH_SHORT).show();
+            }
+
+            @Override
+            public void onFailure(String errorMessage) {
+                List<String> ids = new ArrayList<>(selected.size());
+                for (ShoppingItem item : selected) {
+                    ids.add(item.getId());
+                }
+                shoppingListSync.applyRemovedAll(ids);
+                state.addToBasket(selected);
+                shoppingBasketAdapter.updateItems(shoppingBasket);
+                Toast.makeText(MainActivity.this, "Error: " + errorMessage, Toast.LENGTH_SHORT).show();
+            }
+        });
     }
 
     private void startSettleCost() {
@@ -294,9 +466,8 @@ public class MainActivity extends AppCompatActivity implements ShoppingListAdapt
                     }
 
                     try {
-                        double totalAmount = Double.parseDouble(costStr);
-                        savePurchaseToHistory(totalAmount);
-                    } catch (NumberFormatException e) {
+                        savePurchaseToHistory(Money.parse(costStr));
+                    } catch (NumberFormatException | ArithmeticException e) {
                         Toast.makeText(this, "Invalid cost format", Toast.LENGTH_SHORT).show();
                     }
                 })
@@ -306,69 +477,43 @@ public class MainActivity extends AppCompatActivity implements ShoppingListAdapt
         dialog.show();
     }
 
-    private void savePurchaseToHistory(double totalAmount) {
+    private void savePurchaseToHistory(Money totalAmount) {
         if (mAuth.getCurrentUser() == null) return;
 
-        List<String> itemIds = new ArrayList<>();
-        List<String> itemNames = new ArrayList<>();
-        List<Task<Void>> updateTasks = new ArrayList<>();
-
-        for (ShoppingItem item : shoppingBasket) {
-            itemIds.add(item.getId());
-            itemNames.add(item.getName());
-            
-            // Mark item as purchased in shopping_items
-            item.setPurchased(true);
-            item.setPurchasedBy(mAuth.getCurrentUser().getEmail());
-            item.setPurchasedDate(System.currentTimeMillis());
-            
-            // Add update task to our list
-            Task<Void> updateTask = mDatabase.child("shopping_items")
-                    .child(item.getId())
-                    .setValue(item);
-            updateTasks.add(updateTask);
+        // The items' nodes are deleted by the checkout, a late edit must not bring them back
+        List<ShoppingItem> items = new ArrayList<>(shoppingBasket);
+        for (ShoppingItem item : items) {
+            writeCoalescer.discard(ShoppingStorage.itemPath(item.getId()));
         }
 
-        Purchase purchase = new Purchase(itemIds, itemNames, totalAmount, mAuth.getCurrentUser().getEmail());
-
-        // First save all item updates
-        Tasks.whenAllComplete(updateTasks)
-                .addOnCompleteListener(task -> {
-                    // Then save the purchase
-                    mDatabase.child("purchases")
-                            .push()
-                            .setValue(purchase)
-                            .addOnSuccessListener(aVoid -> {
-                                // Clear the shopping basket
-                                shoppingBasket.clear();
-                                shoppingBasketAdapter.notifyDataSetChanged();
-                                Toast.makeText(MainActivity.this, 
-                                    "Purchase saved to history", 
-                                    Toast.LENGTH_SHORT).show();
-                            })
-                            .addOnFailureListener(e -> 
-                                Toast.makeText(MainActivity.this, 
-                                    "Failed to save purchase", 
-                                    Toast.LENGTH_SHORT).show()
-                            );
-                });
+        // The basket empties at once, the write is applied locally and queued if we are offline.
+        // The service marks the items purchased, saves the purchase and bumps the ledger in one
+        // atomic write, and puts the items back here if it refuses or the write fails
+        state.clearBasket();
+        shoppingBasketAdapter.updateItems(shoppingBasket);
+        basketService.checkoutBasket(items, totalAmount, new ShoppingBasketServices.DatabaseCallback() {
+            @Override
+            public void onSuccess(String message) {
+                Toast.makeText(MainActivity.this, "Purchase saved to history", Toast.LENGTH_SHORT).show();
+            }
+
+            @Override
+            public void onFailure(String errorMessage) {
+                state.addToBasket(items);
+                shoppingBasketAdapter.updateItems(shoppingBasket);
+                Toast.makeText(MainActivity.this, "Failed to save purchase", Toast.LENGTH_SHORT).show();
+            }
+        });
     }
 
     private void logout() {
         // Remove Firebase listeners
-        if (shoppingListListener != null) {
-            mDatabase.child("shopping_items").removeEventListener(shoppingListListener);
-            shoppingListListener = null;
-        }
-        if (purchaseHistoryListener != null) {
-            mDatabase.child("purchases").removeEventListener(purchaseHistoryListener);
-            purchaseHistoryListener = null;
+        if (shoppingListSubscription != null) {
+            shoppingListSubscription.stop();
         }
         
-        // Clear adapters
-        if (shoppingListAdapter != null) {
-            shoppingListAdapter.updateItems(new ArrayList<>());
-        }
+        // Drop the shared state, the next user starts empty
+        state.clear();
         if (shoppingBasketAdapter != null) {
             shoppingBasketAdapter.updateItems(new ArrayList<>());
         }
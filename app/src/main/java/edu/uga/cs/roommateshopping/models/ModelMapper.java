@@ -0,0 +1,197 @@
+package edu.uga.cs.roommateshopping.models;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Converts models to and from the plain maps the database stores.
+ *
+ * Keys match the bean properties Firebase writes for the same classes
+ * ("price" and "totalAmount" in dollars, @Exclude'd accessors left out), so
+ * data written through either path reads back the same way. Numbers are
+ * accepted as any Number, since the database hands back Long or Double
+ * depending on the value.
+ *
+ * Snapshot reads and model writes go through here rather than
+ * getValue(Class)/setValue(model), which map every object by reflection.
+ * Emails and item names read are pooled, so the list, the basket and the
+ * purchase history share one instance of each.
+ */
+public class ModelMapper {
+    private static final StringPool strings = new StringPool();
+
+    private ModelMapper() {}
+
+    public static StringPool getStringPool() {
+        return strings;
+    }
+
+    public static Map<String, Object> toMap(ShoppingItem item) {
+        Map<String, Object> map = new HashMap<>();
+        map.put("id", item.getId());
+        map.put("name", item.getName());
+        map.put("quantity", item.getQuantity());
+        map.put("price", item.getPrice());
+        map.put("purchased", item.isPurchased());
+        map.put("selected", item.isSelected());
+        map.put("addedBy", item.getAddedBy());
+        map.put("purchasedBy", item.getPurchasedBy());
+        map.put("purchasedDate", item.getPurchasedDate());
+        return map;
+    }
+
+    // A copy of the item with some stored fields replaced, e.g. edits not yet written; null clears a field
+    public static ShoppingItem withFields(ShoppingItem item, Map<String, ?> fields) {
+        if (fields.isEmpty()) return item;
+        Map<String, Object> map = toMap(item);
+        map.putAll(fields);
+        return toShoppingItem(item.getId(), map);
+    }
+
+    public static ShoppingItem toShoppingItem(String id, Map<?, ?> map) {
+        ShoppingItem item = new ShoppingItem();
+        item.setId(id);
+        item.setName(strings.intern(asString(map.get("name"))));
+        item.setQuantity((int) asLong(map.get("quantity")));
+        item.setPrice(asDouble(map.get("price")));
+        item.setPurchased(asBoolean(map.get("purchased")));
+        item.setSelected(asBoolean(map.get("selected")));
+        item.setAddedBy(strings.intern(asString(map.get("addedBy"))));
+        item.setPurchasedBy(strings.intern(asString(map.get("purchasedBy"))));
+        item.setPurchasedDate(asLong(map.get("purchasedDate")));
+        return item;
+    }
+
+    public static Map<String, Object> toMap(Purchase purchase) {
+        Map<String, Object> map = new HashMap<>();
+        map.put("id", purchase.getId());
+        List<Map<String, Object>> lines = new ArrayList<>(purchase.getLineCount());
+        for (PurchaseLine line : purchase.getLines()) {
+            lines.add(toMap(line));
+        }
+        map.put("lines", lines);
+        map.put("totalAmount", purchase.getTotalAmount());
+        map.put("purchasedBy", purchase.getPurchasedBy());
+        map.put("purchaseDate", purchase.getPurchaseDate());
+        return map;
+    }
+
+    public static Purchase toPurchase(String id, Map<?, ?> map) {
+        Purchase purchase = new Purchase();
+        purchase.setId(id);
+        if (map.containsKey("lines")) {
+            List<Object> stored = asList(map.get("lines"));
+            List<PurchaseLine> lines = new ArrayList<>(stored.size());
+            for (Object line : stored) {
+                if (line instanceof Map) {
+                    lines.add(toPurchaseLine((Map<?, ?>) line));
+                }
+            }
+            purchase.setLines(lines);
+        } else {
+            // Saved before lines existed
+            purchase.setItemIds(asStringList(map.get("itemIds")));
+            purchase.setItemNames(asPooledStringList(map.get("itemNames")));
+        }
+        purchase.setTotalAmount(asDouble(map.get("totalAmount")));
+        purchase.setPurchasedBy(strings.intern(asString(map.get("purchasedBy"))));
+        purchase.setPurchaseDate(asLong(map.get("purchaseDate")));
+        return purchase;
+    }
+
+    // One-letter keys, as PurchaseLine's @PropertyName annotations
+    public static Map<String, Object> toMap(PurchaseLine line) {
+        Map<String, Object> map = new HashMap<>();
+        map.put("id", line.getItemId());
+        map.put("n", line.getName());
+        map.put("q", line.getQuantity());
+        map.put("p", line.getUnitPrice());
+        return map;
+    }
+
+    public static PurchaseLine toPurchaseLine(Map<?, ?> map) {
+        PurchaseLine line = new PurchaseLine();
+        line.setItemId(asString(map.get("id")));
+        line.setName(strings.intern(asString(map.get("n"))));
+        line.setQuantity((int) asLong(map.get("q")));
+        line.setUnitPrice(asDouble(map.get("p")));
+        return line;
+    }
+
+    // Models, and lists of them, in the form a write stores; anything else is returned as is
+    public static Object toDatabaseValue(Object value) {
+        if (value instanceof ShoppingItem) return toMap((ShoppingItem) value);
+        if (value instanceof Purchase) return toMap((Purchase) value);
+        if (value instanceof PurchaseLine) return toMap((PurchaseLine) value);
+        if (value instanceof List) {
+            List<?> values = (List<?>) value;
+            List<Object> list = new ArrayList<>(values.size());
+            for (Object element : values) {
+                list.add(toDatabaseValue(element));
+            }
+            return list;
+        }
+        return value;
+    }
+
+    // Multi-path updates with their model values mapped, paths and other values untouched
+    public static Map<String, Object> toDatabaseUpdates(Map<String, Object> updates) {
+        Map<String, Object> mapped = new HashMap<>(updates.size() * 2);
+        for (Map.Entry<String, Object> update : updates.entrySet()) {
+            mapped.put(update.getKey(), toDatabaseValue(update.getValue()));
+        }
+        return mapped;
+    }
+
+    private static String asString(Object value) {
+        return value != null ? value.toString() : null;
+    }
+
+    private static long asLong(Object value) {
+        return value instanceof Number ? ((Number) value).longValue() : 0;
+    }
+
+    private static double asDouble(Object value) {
+        return value instanceof Number ? ((Number) value).doubleValue() : 0;
+    }
+
+    private static boolean asBoolean(Object value) {
+        return value instanceof Boolean && (Boolean) value;
+    }
+
+    // Lists come back as a List, or as a map keyed "0", "1", ... when they have gaps
+    private static List<Object> asList(Object value) {
+        if (value instanceof Collection) {
+            return new ArrayList<>((Collection<?>) value);
+        }
+        if (value instanceof Map) {
+            Map<Integer, Object> byIndex = new TreeMap<>();
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                byIndex.put(Integer.parseInt(entry.getKey().toString()), entry.getValue());
+            }
+            return new ArrayList<>(byIndex.values());
+        }
+        return new ArrayList<>();
+    }
+
+    private static List<String> asStringList(Object value) {
+        List<Object> values = asList(value);
+        List<String> list = new ArrayList<>(values.size());
+        for (Object element : values) {
+            list.add(asString(element));
+        }
+        return list;
+    }
+
+    private static List<String> asPooledStringList(Object value) {
+        List<String> list = asStringList(value);
+        for (int i = 0; i < list.size(); i++) {
+            list.set(i, strings.intern(list.get(i)));
+        }
+        return list;
+    }
+}
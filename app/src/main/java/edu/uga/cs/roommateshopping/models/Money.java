@@ -0,0 +1,165 @@
+package edu.uga.cs.roommateshopping.models;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * An exact amount of money: a whole number of minor units (cents) plus a
+ * currency code. Arithmetic is plain long math, so sums never drift the way
+ * repeated double additions do.
+ *
+ * The database still stores amounts as decimal numbers ("price",
+ * "totalAmount"); models convert with fromMajor/toMajor at that boundary.
+ * Hot loops can stay on the static long helpers and skip allocating Money
+ * objects altogether.
+ */
+public final class Money implements Comparable<Money> {
+    public static final String DEFAULT_CURRENCY = "USD";
+    public static final Money ZERO = new Money(0, DEFAULT_CURRENCY);
+
+    private static final int MINOR_DIGITS = 2;
+    private static final long MINOR_PER_MAJOR = 100;
+
+    private final long minorUnits;
+    private final String currency;
+
+    private Money(long minorUnits, String currency) {
+        this.minorUnits = minorUnits;
+        this.currency = currency;
+    }
+
+    public static Money ofMinor(long minorUnits) {
+        return ofMinor(minorUnits, DEFAULT_CURRENCY);
+    }
+
+    public static Money ofMinor(long minorUnits, String currency) {
+        if (minorUnits == 0 && DEFAULT_CURRENCY.equals(currency)) return ZERO;
+        return new Money(minorUnits, currency);
+    }
+
+    public static Money fromMajor(double amount) {
+        return ofMinor(toMinor(amount));
+    }
+
+    // Parses user input such as "12.5" exactly, rounding anything past the cents
+    public static Money parse(String amount) {
+        return ofMinor(new BigDecimal(amount.trim())
+                .setScale(MINOR_DIGITS, RoundingMode.HALF_EVEN)
+                .unscaledValue()
+                .longValueExact());
+    }
+
+    // Decimal amount as stored in the database -> minor units. Stored amounts have at
+    // most two decimals, for which this is exact; free-form input goes through parse().
+    public static long toMinor(double amount) {
+        return Math.round(amount * MINOR_PER_MAJOR);
+    }
+
+    public static double toMajor(long minorUnits) {
+        return minorUnits / (double) MINOR_PER_MAJOR;
+    }
+
+    // Rounds minorUnits * rate half-up, e.g. for tax; no allocation
+    public static long applyRate(long minorUnits, double rate) {
+        return Math.round(minorUnits * rate);
+    }
+
+    // Splits into parts that differ by at most one minor unit and add up exactly,
+    // the first (total % parts) parts get the extra unit
+    public static long[] split(long minorUnits, int parts) {
+        if (parts <= 0) throw new IllegalArgumentException("parts must be positive: " + parts);
+        long[] shares = new long[parts];
+        long share = Math.floorDiv(minorUnits, parts);
+        long leftover = minorUnits - share * parts;
+        for (int i = 0; i < parts; i++) {
+            shares[i] = share + (i < leftover ? 1 : 0);
+        }
+        return shares;
+    }
+
+    public long getMinorUnits() {
+        return minorUnits;
+    }
+
+    public String getCurrency() {
+        return currency;
+    }
+
+    public double toMajor() {
+        return toMajor(minorUnits);
+    }
+
+    public boolean isZero() {
+        return minorUnits == 0;
+    }
+
+    public boolean isNegative() {
+        return minorUnits < 0;
+    }
+
+    public Money plus(Money other) {
+        requireSameCurrency(other);
+        return ofMinor(Math.addExact(minorUnits, other.minorUnits), currency);
+    }
+
+    public Money minus(Money other) {
+        requireSameCurrency(other);
+        return ofMinor(Math.subtractExact(minorUnits, other.minorUnits), currency);
+    }
+
+    public Money times(int quantity) {
+        return ofMinor(Math.multiplyExact(minorUnits, (long) quantity), currency);
+    }
+
+    public Money negate() {
+        return ofMinor(-minorUnits, currency);
+    }
+
+    public Money applyRate(double rate) {
+        return ofMinor(applyRate(minorUnits, rate), currency);
+    }
+
+    public Money[] split(int parts) {
+        long[] shares = split(minorUnits, parts);
+        Money[] result = new Money[parts];
+        for (int i = 0; i < parts; i++) {
+            result[i] = ofMinor(shares[i], currency);
+        }
+        return result;
+    }
+
+    private void requireSameCurrency(Money other) {
+        if (!currency.equals(other.currency)) {
+            throw new IllegalArgumentException("Currency mismatch: " + currency + " vs " + other.currency);
+        }
+    }
+
+    @Override
+    public int compareTo(Money other) {
+        requireSameCurrency(other);
+        return Long.compare(minorUnits, other.minorUnits);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof Money)) return false;
+        Money money = (Money) o;
+        return minorUnits == money.minorUnits && currency.equals(money.currency);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Long.hashCode(minorUnits) + currency.hashCode();
+    }
+
+    // Plain decimal form without the currency, e.g. "12.50", suitable for an edit field
+    public String toDecimalString() {
+        return BigDecimal.valueOf(minorUnits, MINOR_DIGITS).toPlainString();
+    }
+
+    @Override
+    public String toString() {
+        return toDecimalString() + " " + currency;
+    }
+}
@@ -1,22 +1,40 @@
 package edu.uga.cs.roommateshopping.models;
 
+import com.google.firebase.database.Exclude;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 public class Purchase {
     private String id;
-    private List<String> itemIds;  // References to shopping items
-    private double totalAmount;
+    private List<PurchaseLine> lines = Collections.emptyList();  // In checkout order, stored as "lines"
+    private Map<String, PurchaseLine> linesById = Collections.emptyMap();
+    private long totalCents;  // Stored as "totalAmount" in dollars
     private String purchasedBy;
     private long purchaseDate;
-    private List<String> itemNames;  // For easy display without fetching items
+
+    // Purchases saved before lines existed store parallel itemIds/itemNames lists
+    private List<String> legacyItemIds;
+    private List<String> legacyItemNames;
 
     // Required empty constructor for Firebase
     public Purchase() {}
 
     public Purchase(List<String> itemIds, List<String> itemNames, double totalAmount, String purchasedBy) {
-        this.itemIds = itemIds;
-        this.itemNames = itemNames;
-        this.totalAmount = totalAmount;
+        this(itemIds, itemNames, Money.fromMajor(totalAmount), purchasedBy);
+    }
+
+    // Lines without quantity or price, as old purchases were stored
+    public Purchase(List<String> itemIds, List<String> itemNames, Money total, String purchasedBy) {
+        this(linesOf(itemIds, itemNames), total, purchasedBy);
+    }
+
+    public Purchase(List<PurchaseLine> lines, Money total, String purchasedBy) {
+        setLines(lines);
+        this.totalCents = total.getMinorUnits();
         this.purchasedBy = purchasedBy;
         this.purchaseDate = System.currentTimeMillis();
     }
@@ -29,28 +47,90 @@ public class Purchase {
         this.id = id;
     }
 
+    public List<PurchaseLine> getLines() {
+        return lines;
+    }
+
+    // Indexed by item id; a repeated id keeps its first position and its last line
+    public void setLines(List<PurchaseLine> lines) {
+        int size = lines != null ? lines.size() : 0;
+        Map<String, PurchaseLine> byId = new LinkedHashMap<>(size * 4 / 3 + 1);
+        for (int i = 0; i < size; i++) {
+            PurchaseLine line = lines.get(i);
+            if (line != null) {  // Gaps in a stored array read back as null
+                byId.put(line.getItemId(), line);
+            }
+        }
+        this.lines = Collections.unmodifiableList(new ArrayList<>(byId.values()));
+        this.linesById = byId;
+    }
+
+    @Exclude
+    public PurchaseLine getLine(String itemId) {
+        return linesById.get(itemId);
+    }
+
+    @Exclude
+    public boolean containsItem(String itemId) {
+        return linesById.containsKey(itemId);
+    }
+
+    @Exclude
+    public int getLineCount() {
+        return lines.size();
+    }
+
+    @Exclude
     public List<String> getItemIds() {
+        List<String> itemIds = new ArrayList<>(lines.size());
+        for (PurchaseLine line : lines) {
+            itemIds.add(line.getItemId());
+        }
         return itemIds;
     }
 
+    // Read from purchases saved before lines existed, never written
     public void setItemIds(List<String> itemIds) {
-        this.itemIds = itemIds;
+        this.legacyItemIds = itemIds;
+        setLines(linesOf(legacyItemIds, legacyItemNames));
     }
 
+    @Exclude
     public List<String> getItemNames() {
+        List<String> itemNames = new ArrayList<>(lines.size());
+        for (PurchaseLine line : lines) {
+            itemNames.add(line.getName());
+        }
         return itemNames;
     }
 
+    // Read from purchases saved before lines existed, never written
     public void setItemNames(List<String> itemNames) {
-        this.itemNames = itemNames;
+        this.legacyItemNames = itemNames;
+        setLines(linesOf(legacyItemIds, legacyItemNames));
     }
 
     public double getTotalAmount() {
-        return totalAmount;
+        return Money.toMajor(totalCents);
     }
 
     public void setTotalAmount(double totalAmount) {
-        this.totalAmount = totalAmount;
+        this.totalCents = Money.toMinor(totalAmount);
+    }
+
+    @Exclude
+    public long getTotalCents() {
+        return totalCents;
+    }
+
+    @Exclude
+    public Money getTotal() {
+        return Money.ofMinor(totalCents);
+    }
+
+    @Exclude
+    public void setTotal(Money total) {
+        this.totalCents = total.getMinorUnits();
     }
 
     public String getPurchasedBy() {
@@ -68,4 +148,14 @@ public class Purchase {
     public void setPurchaseDate(long purchaseDate) {
         this.purchaseDate = purchaseDate;
     }
+
+    private static List<PurchaseLine> linesOf(List<String> itemIds, List<String> itemNames) {
+        if (itemIds == null) return Collections.emptyList();
+        List<PurchaseLine> lines = new ArrayList<>(itemIds.size());
+        for (int i = 0; i < itemIds.size(); i++) {
+            String name = itemNames != null && i < itemNames.size() ? itemNames.get(i) : null;
+            lines.add(new PurchaseLine(itemIds.get(i), name, 0, Money.ZERO));
+        }
+        return lines;
+    }
 }
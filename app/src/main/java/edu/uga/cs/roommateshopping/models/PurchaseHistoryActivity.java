@@ -0,0 +1,132 @@
+package edu.uga.cs.roommateshopping;
+
+import android.os.Bundle;
+import android.widget.Toast;
+
+import androidx.annotation.NonNull;
+import androidx.appcompat.app.AppCompatActivity;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import edu.uga.cs.roommateshopping.adapters.PurchaseHistoryAdapter;
+import edu.uga.cs.roommateshopping.models.Purchase;
+import edu.uga.cs.roommateshopping.services.PurchaseHistoryPager;
+import edu.uga.cs.roommateshopping.services.ShoppingRepository;
+import edu.uga.cs.roommateshopping.services.SubscriptionLifecycle;
+import edu.uga.cs.roommateshopping.services.SubscriptionManager;
+
+public class PurchaseHistoryActivity extends AppCompatActivity {
+    private static final int PAGE_SIZE = 20;
+    private static final int MAX_PAGES = 5;
+    // Start fetching the next page when this many rows are left before either end
+    private static final int PREFETCH_DISTANCE = 5;
+
+    private ShoppingRepository repository;
+    private PurchaseHistoryPager pager;
+    private PurchaseHistoryAdapter adapter;
+    private LinearLayoutManager layoutManager;
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        setContentView(R.layout.activity_purchase_history);
+
+        repository = ShoppingRepository.getInstance();
+        pager = new PurchaseHistoryPager(PAGE_SIZE, MAX_PAGES);
+
+        RecyclerView recyclerView = findViewById(R.id.purchaseHistoryRecyclerView);
+        layoutManager = new LinearLayoutManager(this);
+        recyclerView.setLayoutManager(layoutManager);
+        adapter = new PurchaseHistoryAdapter(new ArrayList<>());
+        recyclerView.setAdapter(adapter);
+        recyclerView.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+                if (dy > 0) {
+                    int lastVisible = layoutManager.findLastVisibleItemPosition();
+                    if (lastVisible >= adapter.getItemCount() - PREFETCH_DISTANCE) {
+                        loadOlder();
+                    }
+                } else if (dy < 0) {
+                    if (layoutManager.findFirstVisibleItemPosition() <= PREFETCH_DISTANCE) {
+                        loadNewer();
+                    }
+                }
+            }
+        });
+
+        // Show the page already loaded on an earlier visit while the listener catches up
+        List<Purchase> cached = repository.getState().getRecentPurchases();
+        if (cached != null) {
+            pager.onLivePage(cached);
+            showWindow();
+        }
+
+        // Only the newest page is listened to live, older pages are read once.
+        // The listener is attached only while this screen is started.
+        SubscriptionLifecycle.bind(this, repository.subscribeToNewestPurchases(PAGE_SIZE,
+                new SubscriptionManager.Observer<List<Purchase>>() {
+                    @Override
+                    public void onValue(List<Purchase> purchases) {
+                        pager.onLivePage(purchases);
+                        showWindow();
+                    }
+
+                    @Override
+                    public void onError(String errorMessage) {
+                        showError();
+                    }
+                }));
+    }
+
+    private void loadOlder() {
+        if (!pager.canLoadOlder()) return;
+        pager.setLoading(true);
+        repository.loadPurchasesBefore(pager.olderCursor(), pager.getCursorQuerySize(),
+                new ShoppingRepository.PurchasesCallback() {
+                    @Override
+                    public void onPurchasesLoaded(List<Purchase> purchases) {
+                        pager.onOlderPage(purchases);
+                        showWindow();
+                    }
+
+                    @Override
+                    public void onFailure(String errorMessage) {
+                        pager.setLoading(false);
+                        showError();
+                    }
+                });
+    }
+
+    private void loadNewer() {
+        if (!pager.canLoadNewer()) return;
+        pager.setLoading(true);
+        repository.loadPurchasesAfter(pager.newerCursor(), pager.getCursorQuerySize(),
+                new ShoppingRepository.PurchasesCallback() {
+                    @Override
+                    public void onPurchasesLoaded(List<Purchase> purchases) {
+                        pager.onNewerPage(purchases);
+                        showWindow();
+                    }
+
+                    @Override
+                    public void onFailure(String errorMessage) {
+                        pager.setLoading(false);
+                        showError();
+                    }
+                });
+    }
+
+    private void showWindow() {
+        adapter.updatePurchases(pager.getWindow());
+    }
+
+    private void showError() {
+        Toast.makeText(PurchaseHistoryActivity.this,
+                "Failed to load purchase history",
+                Toast.LENGTH_SHORT).show();
+    }
+}
@@ -0,0 +1,95 @@
+package edu.uga.cs.roommateshopping.models;
+
+import com.google.firebase.database.Exclude;
+import com.google.firebase.database.PropertyName;
+
+import java.util.Objects;
+
+// One item of a purchase; stored under one-letter keys since every purchase repeats them
+public class PurchaseLine {
+    private String itemId;
+    private String name;
+    private int quantity;
+    private long unitPriceCents;  // Stored as "p" in dollars, like ShoppingItem's "price"
+
+    // Required empty constructor for Firebase
+    public PurchaseLine() {}
+
+    public PurchaseLine(String itemId, String name, int quantity, Money unitPrice) {
+        this.itemId = itemId;
+        this.name = name;
+        this.quantity = quantity;
+        this.unitPriceCents = unitPrice.getMinorUnits();
+    }
+
+    public static PurchaseLine of(ShoppingItem item) {
+        return new PurchaseLine(item.getId(), item.getName(), item.getQuantity(), item.getUnitPrice());
+    }
+
+    @PropertyName("id")
+    public String getItemId() {
+        return itemId;
+    }
+
+    @PropertyName("id")
+    public void setItemId(String itemId) {
+        this.itemId = itemId;
+    }
+
+    @PropertyName("n")
+    public String getName() {
+        return name;
+    }
+
+    @PropertyName("n")
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    // 0 for lines read from purchases saved before quantities were kept
+    @PropertyName("q")
+    public int getQuantity() {
+        return quantity;
+    }
+
+    @PropertyName("q")
+    public void setQuantity(int quantity) {
+        this.quantity = quantity;
+    }
+
+    @PropertyName("p")
+    public double getUnitPrice() {
+        return Money.toMajor(unitPriceCents);
+    }
+
+    @PropertyName("p")
+    public void setUnitPrice(double unitPrice) {
+        this.unitPriceCents = Money.toMinor(unitPrice);
+    }
+
+    @Exclude
+    public long getUnitPriceCents() {
+        return unitPriceCents;
+    }
+
+    @Exclude
+    public long getLineTotalCents() {
+        return unitPriceCents * quantity;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof PurchaseLine)) return false;
+        PurchaseLine other = (PurchaseLine) o;
+        return quantity == other.quantity
+                && unitPriceCents == other.unitPriceCents
+                && Objects.equals(itemId, other.itemId)
+                && Objects.equals(name, other.name);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(itemId, name, quantity, unitPriceCents);
+    }
+}
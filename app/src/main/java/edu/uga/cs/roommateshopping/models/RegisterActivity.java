@@ -15,6 +15,13 @@ import android.widget.Toast;
 import android.widget.Button;
 
 import com.google.firebase.auth.FirebaseUser;
+import com.google.firebase.database.ServerValue;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import edu.uga.cs.roommateshopping.services.ShoppingRepository;
+import edu.uga.cs.roommateshopping.services.SpendingLedger;
 
 
 public class RegisterActivity extends AppCompatActivity {
@@ -49,6 +56,7 @@ public class RegisterActivity extends AppCompatActivity {
                         firestoreService.addUserToFirestore(user.getUid(), email, new FirestoreService.FirestoreCallback() {
                             @Override
                             public void onSuccess(String message) {
+                                addUserToLedger(user.getUid(), email);
                                 Toast.makeText(RegisterActivity.this, "Registration successful!", Toast.LENGTH_SHORT).show();
 
                                 // redirect to main app screen
@@ -74,4 +82,13 @@ public class RegisterActivity extends AppCompatActivity {
             }
         });
     }
+
+    // Keeps the household size on the ledger so settling never has to count the users node
+    private void addUserToLedger(String userId, String email) {
+        Map<String, Object> updates = new HashMap<>();
+        updates.put("users/" + userId + "/email", email);
+        updates.put(SpendingLedger.USER_COUNT_PATH, ServerValue.increment(1));
+        updates.put(SpendingLedger.memberPath(email), true);
+        ShoppingRepository.getInstance().getRoot().updateChildren(updates);
+    }
 }
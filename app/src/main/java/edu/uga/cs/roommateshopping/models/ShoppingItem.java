@@ -1,13 +1,17 @@
 package edu.uga.cs.roommateshopping.models;
 
+import com.google.firebase.database.Exclude;
+
 public class ShoppingItem {
     private String id;          // Unique identifier for the item
     private String name;        // Name of the item
     private int quantity;       // Quantity of the item
-    private double price;       // Price of the item
+    private long priceCents;    // Price of the item in cents, stored as "price" in dollars
     private boolean purchased;  // Indicates if the item has been purchased
     private boolean selected;   // Indicates if the item is selected in the UI
     private String addedBy;     // Email of the user who added the item
+    private String purchasedBy; // Email of the user who checked the item out
+    private long purchasedDate; // Checkout time in epoch millis
 
     // Empty constructor for Firebase
     public ShoppingItem() {}
@@ -17,7 +21,7 @@ public class ShoppingItem {
         this.id = id;
         this.name = name;
         this.quantity = quantity;
-        this.price = price;
+        this.priceCents = Money.toMinor(price);
         this.purchased = purchased;
         this.selected = false;  // Default value for selection
         this.addedBy = addedBy;
@@ -49,11 +53,32 @@ public class ShoppingItem {
     }
 
     public double getPrice() {
-        return price;
+        return Money.toMajor(priceCents);
     }
 
     public void setPrice(double price) {
-        this.price = price;
+        this.priceCents = Money.toMinor(price);
+    }
+
+    @Exclude
+    public long getPriceCents() {
+        return priceCents;
+    }
+
+    @Exclude
+    public void setPriceCents(long priceCents) {
+        this.priceCents = priceCents;
+    }
+
+    @Exclude
+    public Money getUnitPrice() {
+        return Money.ofMinor(priceCents);
+    }
+
+    // Price times quantity, in cents
+    @Exclude
+    public long getLineTotalCents() {
+        return priceCents * quantity;
     }
 
     public boolean isPurchased() {
@@ -80,13 +105,29 @@ public class ShoppingItem {
         this.addedBy = addedBy;
     }
 
+    public String getPurchasedBy() {
+        return purchasedBy;
+    }
+
+    public void setPurchasedBy(String purchasedBy) {
+        this.purchasedBy = purchasedBy;
+    }
+
+    public long getPurchasedDate() {
+        return purchasedDate;
+    }
+
+    public void setPurchasedDate(long purchasedDate) {
+        this.purchasedDate = purchasedDate;
+    }
+
     @Override
     public String toString() {
         return "ShoppingItem{" +
                 "id='" + id + '\'' +
                 ", name='" + name + '\'' +
                 ", quantity=" + quantity +
-                ", price=" + price +
+                ", price=" + Money.ofMinor(priceCents) +
                 ", purchased=" + purchased +
                 ", selected=" + selected +
                 ", addedBy='" + addedBy + '\'' +
@@ -0,0 +1,37 @@
+package edu.uga.cs.roommateshopping.models;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Hands back one shared instance for equal strings.
+ *
+ * Every snapshot parse produces a fresh String for each value, so without
+ * this a household of a few people holds one copy of an email per item
+ * and purchase, and one copy of "Milk" per list entry, basket entry and
+ * purchase line. Pooled, each distinct value is kept once and every model
+ * holding it costs a single reference, the same as a small integer id.
+ *
+ * Unlike String.intern() the pool can be cleared, e.g. when the user signs
+ * out. Clearing only loses sharing with strings read earlier.
+ */
+public class StringPool {
+    private final ConcurrentMap<String, String> strings = new ConcurrentHashMap<>();
+
+    // Null stays null
+    public String intern(String value) {
+        if (value == null) {
+            return null;
+        }
+        String pooled = strings.putIfAbsent(value, value);
+        return pooled != null ? pooled : value;
+    }
+
+    public int size() {
+        return strings.size();
+    }
+
+    public void clear() {
+        strings.clear();
+    }
+}
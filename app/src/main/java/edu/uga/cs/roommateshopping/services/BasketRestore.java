@@ -0,0 +1,39 @@
+package edu.uga.cs.roommateshopping.services;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import edu.uga.cs.roommateshopping.models.ShoppingItem;
+
+/**
+ * Rebuilds a saved basket from its item ids in one pass.
+ *
+ * Items are looked up in whatever has already been read (the user's basket
+ * node), the saved order is kept, and ids that no longer resolve (the item
+ * was checked out or moved back in the meantime) or appear twice are dropped.
+ */
+public class BasketRestore {
+
+    private BasketRestore() {}
+
+    public static List<ShoppingItem> resolve(List<String> savedIds, Iterable<ShoppingItem> available) {
+        Map<String, ShoppingItem> byId = new HashMap<>();
+        for (ShoppingItem item : available) {
+            byId.put(item.getId(), item);
+        }
+
+        List<ShoppingItem> basket = new ArrayList<>(savedIds.size());
+        Set<String> seen = new HashSet<>();
+        for (String id : savedIds) {
+            ShoppingItem item = byId.get(id);
+            if (item != null && seen.add(id)) {
+                basket.add(item);
+            }
+        }
+        return basket;
+    }
+}
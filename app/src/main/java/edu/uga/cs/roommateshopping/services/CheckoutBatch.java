@@ -0,0 +1,43 @@
+package edu.uga.cs.roommateshopping.services;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import edu.uga.cs.roommateshopping.models.ModelMapper;
+import edu.uga.cs.roommateshopping.models.Purchase;
+import edu.uga.cs.roommateshopping.models.ShoppingItem;
+
+/**
+ * Builds the single multi-location update used at checkout. Moving every
+ * basket item from the user's basket to archived_items, marked as purchased,
+ * and creating the purchase record go out in one updateChildren call, so
+ * checkout is one round trip and either all of it lands or none of it does.
+ * shopping_items is left holding open items only, and the basket keeps only
+ * items added after the checkout was built.
+ */
+public class CheckoutBatch {
+
+    private CheckoutBatch() {}
+
+    // Paths are relative to the database root
+    public static Map<String, Object> build(List<ShoppingItem> basketItems, String userId,
+                                            String purchaseId, Purchase purchase) {
+        Map<String, Object> updates = new HashMap<>(basketItems.size() * 6 + 2);
+        String basketPath = ShoppingStorage.basketPath(userId);
+
+        for (ShoppingItem item : basketItems) {
+            // Built from a copy, the basket items themselves are not touched
+            Map<String, Object> archived = ModelMapper.toMap(item);
+            archived.put("purchased", true);
+            archived.put("purchasedBy", purchase.getPurchasedBy());
+            archived.put("purchasedDate", purchase.getPurchaseDate());
+            updates.put(ShoppingStorage.archivedItemPath(item.getId()), archived);
+            updates.put(ShoppingStorage.itemPath(item.getId()), null);
+            updates.put(basketPath + "/" + item.getId(), null);
+        }
+        updates.put(ShoppingStorage.purchasePath(purchaseId), purchase);
+
+        return updates;
+    }
+}
@@ -0,0 +1,39 @@
+package edu.uga.cs.roommateshopping.services;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import edu.uga.cs.roommateshopping.models.Money;
+import edu.uga.cs.roommateshopping.models.Purchase;
+import edu.uga.cs.roommateshopping.models.PurchaseLine;
+import edu.uga.cs.roommateshopping.models.ShoppingItem;
+
+// Basket totals and the resulting Purchase, kept free of database code so it can be benchmarked on the JVM
+public class CheckoutCalculator {
+
+    private CheckoutCalculator() {}
+
+    // Sum in cents, tax is rounded once on the subtotal
+    public static Money total(List<ShoppingItem> basketItems, double taxRate) {
+        long subtotalCents = 0;
+        for (ShoppingItem item : basketItems) {
+            subtotalCents += item.getLineTotalCents();
+        }
+        return Money.ofMinor(subtotalCents + Money.applyRate(subtotalCents, taxRate));
+    }
+
+    public static Purchase buildPurchase(List<ShoppingItem> basketItems, double taxRate, String purchasedBy) {
+        return buildPurchase(basketItems, total(basketItems, taxRate), purchasedBy);
+    }
+
+    // For a total the shopper paid, e.g. one entered from the receipt
+    public static Purchase buildPurchase(List<ShoppingItem> basketItems, Money totalAmount, String purchasedBy) {
+        List<PurchaseLine> lines = new ArrayList<>(basketItems.size());
+        for (ShoppingItem item : basketItems) {
+            lines.add(PurchaseLine.of(item));
+        }
+
+        // Lines keep basket order; Purchase keeps one line per item id
+        return new Purchase(lines, totalAmount, purchasedBy);
+    }
+}
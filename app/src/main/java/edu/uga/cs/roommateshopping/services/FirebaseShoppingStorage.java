@@ -0,0 +1,78 @@
+package edu.uga.cs.roommateshopping.services;
+
+import androidx.annotation.NonNull;
+
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.DatabaseError;
+import com.google.firebase.database.DatabaseReference;
+import com.google.firebase.database.ValueEventListener;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import edu.uga.cs.roommateshopping.models.ModelMapper;
+import edu.uga.cs.roommateshopping.models.Purchase;
+import edu.uga.cs.roommateshopping.models.ShoppingItem;
+
+// ShoppingStorage over the Realtime Database, sharing ShoppingRepository's offline-enabled instance
+public class FirebaseShoppingStorage implements ShoppingStorage {
+    private final DatabaseReference rootRef;
+
+    public FirebaseShoppingStorage() {
+        this(ShoppingRepository.getInstance().getRoot());
+    }
+
+    public FirebaseShoppingStorage(DatabaseReference rootRef) {
+        this.rootRef = rootRef;
+    }
+
+    @Override
+    public String newPurchaseId() {
+        return rootRef.child(PURCHASES_PATH).push().getKey();
+    }
+
+    @Override
+    public void getItems(String path, Callback<List<ShoppingItem>> callback) {
+        rootRef.child(path).addListenerForSingleValueEvent(new ValueEventListener() {
+            @Override
+            public void onDataChange(@NonNull DataSnapshot dataSnapshot) {
+                List<ShoppingItem> items = new ArrayList<>((int) dataSnapshot.getChildrenCount());
+                for (DataSnapshot snapshot : dataSnapshot.getChildren()) {
+                    ShoppingItem item = ShoppingRepository.readShoppingItem(snapshot);
+                    if (item != null) {
+                        items.add(item);
+                    }
+                }
+                callback.onSuccess(items);
+            }
+
+            @Override
+            public void onCancelled(@NonNull DatabaseError error) {
+                callback.onFailure(error.getMessage());
+            }
+        });
+    }
+
+    @Override
+    public void getPurchases(Callback<List<Purchase>> callback) {
+        rootRef.child(PURCHASES_PATH).addListenerForSingleValueEvent(new ValueEventListener() {
+            @Override
+            public void onDataChange(@NonNull DataSnapshot dataSnapshot) {
+                callback.onSuccess(ShoppingRepository.readPurchases(dataSnapshot));
+            }
+
+            @Override
+            public void onCancelled(@NonNull DatabaseError error) {
+                callback.onFailure(error.getMessage());
+            }
+        });
+    }
+
+    @Override
+    public void update(Map<String, Object> updates, WriteCallback callback) {
+        rootRef.updateChildren(ModelMapper.toDatabaseUpdates(updates))
+                .addOnSuccessListener(aVoid -> callback.onSuccess())
+                .addOnFailureListener(e -> callback.onFailure(e.getMessage()));
+    }
+}
@@ -0,0 +1,270 @@
+package edu.uga.cs.roommateshopping.services;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import edu.uga.cs.roommateshopping.models.ModelMapper;
+import edu.uga.cs.roommateshopping.models.Purchase;
+import edu.uga.cs.roommateshopping.models.PurchaseLine;
+import edu.uga.cs.roommateshopping.models.ShoppingItem;
+
+/**
+ * ShoppingStorage kept in memory, for load tests and benchmarks on the JVM.
+ *
+ * Data is a tree of sorted maps, like the Realtime Database: models are
+ * stored field by field, so partial writes such as
+ * "shopping_items/<id>/purchased" behave the same, empty nodes disappear and
+ * ServerValue.increment maps are applied on write. Each call completes on a
+ * pool thread after the configured latency; a multi-path update is applied
+ * under one write lock, so readers never see half of it.
+ */
+public class InMemoryShoppingStorage implements ShoppingStorage {
+    private final Map<String, Object> root = new TreeMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final ScheduledExecutorService network;
+    private final long latencyMillis;
+    private final AtomicLong nextKey = new AtomicLong();
+    private final AtomicInteger reads = new AtomicInteger();
+    private final AtomicInteger writes = new AtomicInteger();
+
+    public InMemoryShoppingStorage() {
+        this(0, 4);
+    }
+
+    public InMemoryShoppingStorage(long latencyMillis, int threads) {
+        this.latencyMillis = latencyMillis;
+        this.network = Executors.newScheduledThreadPool(threads);
+    }
+
+    public void shutdown() {
+        network.shutdownNow();
+    }
+
+    public int getReadCount() {
+        return reads.get();
+    }
+
+    public int getWriteCount() {
+        return writes.get();
+    }
+
+    public void resetCounts() {
+        reads.set(0);
+        writes.set(0);
+    }
+
+    @Override
+    public String newPurchaseId() {
+        return String.format("-p%018d", nextKey.incrementAndGet());
+    }
+
+    @Override
+    public void getItems(String path, Callback<List<ShoppingItem>> callback) {
+        reads.incrementAndGet();
+        schedule(() -> {
+            List<ShoppingItem> items = new ArrayList<>();
+            lock.readLock().lock();
+            try {
+                for (Map.Entry<String, Object> child : children(path).entrySet()) {
+                    if (child.getValue() instanceof Map) {
+                        items.add(ModelMapper.toShoppingItem(child.getKey(), (Map<?, ?>) child.getValue()));
+                    }
+                }
+            } finally {
+                lock.readLock().unlock();
+            }
+            callback.onSuccess(items);
+        });
+    }
+
+    @Override
+    public void getPurchases(Callback<List<Purchase>> callback) {
+        reads.incrementAndGet();
+        schedule(() -> {
+            List<Purchase> purchases = new ArrayList<>();
+            lock.readLock().lock();
+            try {
+                for (Map.Entry<String, Object> child : children(PURCHASES_PATH).entrySet()) {
+                    if (child.getValue() instanceof Map) {
+                        purchases.add(ModelMapper.toPurchase(child.getKey(), (Map<?, ?>) child.getValue()));
+                    }
+                }
+            } finally {
+                lock.readLock().unlock();
+            }
+            callback.onSuccess(purchases);
+        });
+    }
+
+    @Override
+    public void update(Map<String, Object> updates, WriteCallback callback) {
+        writes.incrementAndGet();
+
+        // Values are captured now, like the real client does
+        Map<String, Object> stored = new TreeMap<>();
+        for (Map.Entry<String, Object> entry : updates.entrySet()) {
+            stored.put(trim(entry.getKey()), toStored(entry.getValue()));
+        }
+        String overlap = findOverlap(stored.keySet());
+
+        schedule(() -> {
+            if (overlap != null) {
+                callback.onFailure("Path " + overlap + " overlaps another path in the same update");
+                return;
+            }
+            lock.writeLock().lock();
+            try {
+                for (Map.Entry<String, Object> entry : stored.entrySet()) {
+                    set(entry.getKey(), entry.getValue());
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+            callback.onSuccess();
+        });
+    }
+
+    // Copy of whatever is stored at path, null if nothing; models come back as maps
+    public Object get(String path) {
+        lock.readLock().lock();
+        try {
+            return copy(node(trim(path)));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void schedule(Runnable task) {
+        if (latencyMillis > 0) {
+            network.schedule(task, latencyMillis, TimeUnit.MILLISECONDS);
+        } else {
+            network.execute(task);
+        }
+    }
+
+    private static String trim(String path) {
+        String trimmed = path;
+        while (trimmed.startsWith("/")) trimmed = trimmed.substring(1);
+        while (trimmed.endsWith("/")) trimmed = trimmed.substring(0, trimmed.length() - 1);
+        return trimmed;
+    }
+
+    // The database rejects updates where one path contains another
+    private static String findOverlap(Set<String> paths) {
+        for (String path : paths) {
+            for (int slash = path.indexOf('/'); slash >= 0; slash = path.indexOf('/', slash + 1)) {
+                if (paths.contains(path.substring(0, slash))) {
+                    return path;
+                }
+            }
+        }
+        return null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> children(String path) {
+        Object node = node(trim(path));
+        return node instanceof Map ? (Map<String, Object>) node : Collections.emptyMap();
+    }
+
+    @SuppressWarnings("unchecked")
+    private Object node(String path) {
+        Object node = root;
+        if (path.isEmpty()) return node;
+        for (String segment : path.split("/")) {
+            if (!(node instanceof Map)) return null;
+            node = ((Map<String, Object>) node).get(segment);
+        }
+        return node;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void set(String path, Object value) {
+        String[] segments = path.split("/");
+        List<Map<String, Object>> parents = new ArrayList<>(segments.length);
+        Map<String, Object> node = root;
+        for (int i = 0; i < segments.length - 1; i++) {
+            parents.add(node);
+            Object child = node.get(segments[i]);
+            if (!(child instanceof Map)) {
+                if (value == null) return;  // Nothing to delete
+                child = new TreeMap<String, Object>();
+                node.put(segments[i], child);
+            }
+            node = (Map<String, Object>) child;
+        }
+
+        String key = segments[segments.length - 1];
+        Object resolved = resolveIncrement(node.get(key), value);
+        if (resolved == null) {
+            node.remove(key);
+            // Empty parents disappear, as in the database
+            for (int i = parents.size() - 1; i >= 0 && node.isEmpty(); i--) {
+                parents.get(i).remove(segments[i]);
+                node = parents.get(i);
+            }
+        } else {
+            node.put(key, resolved);
+        }
+    }
+
+    // ServerValue.increment(n) arrives as {".sv": {"increment": n}}
+    private static Object resolveIncrement(Object current, Object value) {
+        if (!(value instanceof Map)) return value;
+        Object sv = ((Map<?, ?>) value).get(".sv");
+        if (!(sv instanceof Map)) return value;
+        Object delta = ((Map<?, ?>) sv).get("increment");
+        long base = current instanceof Number ? ((Number) current).longValue() : 0;
+        return base + (delta instanceof Number ? ((Number) delta).longValue() : 0);
+    }
+
+    // Models become maps, numbers are widened to Long/Double and empty maps mean delete
+    private static Object toStored(Object value) {
+        if (value == null) return null;
+        if (value instanceof ShoppingItem) return toStored(ModelMapper.toMap((ShoppingItem) value));
+        if (value instanceof Purchase) return toStored(ModelMapper.toMap((Purchase) value));
+        if (value instanceof PurchaseLine) return toStored(ModelMapper.toMap((PurchaseLine) value));
+        if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            return ((Number) value).longValue();
+        }
+        if (value instanceof Float) return ((Float) value).doubleValue();
+        if (value instanceof Map) {
+            Map<String, Object> map = new TreeMap<>();
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                Object child = toStored(entry.getValue());
+                if (child != null) {
+                    map.put(entry.getKey().toString(), child);
+                }
+            }
+            return map.isEmpty() ? null : map;
+        }
+        if (value instanceof List) {
+            List<Object> list = new ArrayList<>();
+            for (Object element : (List<?>) value) {
+                list.add(toStored(element));
+            }
+            return list.isEmpty() ? null : Collections.unmodifiableList(list);
+        }
+        return value;
+    }
+
+    private static Object copy(Object node) {
+        if (!(node instanceof Map)) return node;
+        Map<String, Object> copy = new TreeMap<>();
+        for (Map.Entry<?, ?> entry : ((Map<?, ?>) node).entrySet()) {
+            copy.put(entry.getKey().toString(), copy(entry.getValue()));
+        }
+        return copy;
+    }
+}
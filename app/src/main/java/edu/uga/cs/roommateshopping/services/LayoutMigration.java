@@ -0,0 +1,91 @@
+package edu.uga.cs.roommateshopping.services;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Plans the one-time move to the split data layout.
+ *
+ * Before it, purchased items stayed in shopping_items flagged as
+ * purchased, so the shopping list query filtered an ever-growing node,
+ * and each basket lived under users/<uid>/shopping_basket, so reading
+ * the users node pulled every basket with it.
+ *
+ * plan() moves purchased items to archived_items and records the schema
+ * version so no client runs it again. The moves are split into batches of
+ * at most MAX_PATHS_PER_BATCH paths, each a multi-path update applied in
+ * order. A move never spans two batches, so an item is never in both
+ * places or neither, and a plan that stops half way can simply be planned
+ * and run again. The version is written with the last batch.
+ *
+ * Baskets can only be written by their owner, so each user moves their
+ * own to baskets/<uid> with planBasketMove() when they sign in.
+ */
+public class LayoutMigration {
+    public static final String SCHEMA_VERSION_PATH = "meta/schemaVersion";
+    public static final long SCHEMA_VERSION = 2;
+    public static final int MAX_PATHS_PER_BATCH = 500;
+
+    private static final String LEGACY_BASKET = "shopping_basket";
+
+    private LayoutMigration() {}
+
+    // Nothing to do once the stored version is this one or later; null means never migrated
+    public static boolean isNeeded(Long storedVersion) {
+        return storedVersion == null || storedVersion < SCHEMA_VERSION;
+    }
+
+    // items is the value of shopping_items, null when there are none
+    public static List<Map<String, Object>> plan(Map<?, ?> items) {
+        List<Map<String, Object>> batches = new ArrayList<>();
+        Map<String, Object> batch = new HashMap<>();
+
+        if (items != null) {
+            for (Map.Entry<?, ?> entry : items.entrySet()) {
+                if (!isPurchased(entry.getValue())) continue;
+                String itemId = entry.getKey().toString();
+                batch = room(batches, batch, 2);
+                batch.put(ShoppingStorage.archivedItemPath(itemId), entry.getValue());
+                batch.put(ShoppingStorage.itemPath(itemId), null);
+            }
+        }
+
+        batch = room(batches, batch, 1);
+        batch.put(SCHEMA_VERSION_PATH, SCHEMA_VERSION);
+        batches.add(batch);
+        return batches;
+    }
+
+    public static String legacyBasketPath(String userId) {
+        return "users/" + userId + "/" + LEGACY_BASKET;
+    }
+
+    // One update moving a user's old basket, empty when there is nothing to move.
+    // Merged into the new basket item by item, so items already there are kept.
+    public static Map<String, Object> planBasketMove(String userId, Map<?, ?> legacyBasket) {
+        Map<String, Object> updates = new HashMap<>();
+        if (legacyBasket == null) {
+            return updates;
+        }
+        for (Map.Entry<?, ?> entry : legacyBasket.entrySet()) {
+            updates.put(ShoppingStorage.basketPath(userId) + "/" + entry.getKey(), entry.getValue());
+        }
+        updates.put(legacyBasketPath(userId), null);
+        return updates;
+    }
+
+    // The current batch if it has room for paths more, otherwise a new one
+    private static Map<String, Object> room(List<Map<String, Object>> batches, Map<String, Object> batch, int paths) {
+        if (batch.size() + paths <= MAX_PATHS_PER_BATCH) {
+            return batch;
+        }
+        batches.add(batch);
+        return new HashMap<>();
+    }
+
+    private static boolean isPurchased(Object item) {
+        return item instanceof Map && Boolean.TRUE.equals(((Map<?, ?>) item).get("purchased"));
+    }
+}
@@ -0,0 +1,162 @@
+package edu.uga.cs.roommateshopping.services;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import edu.uga.cs.roommateshopping.models.Purchase;
+
+/**
+ * Bounded, cursor-paged window over the purchase history, newest first.
+ *
+ * Only the newest page is listened to live. Older pages are fetched once
+ * with the oldest loaded purchase as cursor (purchaseDate, then key, which
+ * is the order of orderByChild("purchaseDate")). When the window grows past
+ * maxItems, pages are dropped from the far end and fetched again if the
+ * user scrolls back to them.
+ *
+ * Pages are passed in the order the database returns them (oldest first),
+ * each one including the cursor row the query was anchored on. This class
+ * has no Firebase dependency.
+ */
+public class PurchaseHistoryPager {
+    private final int pageSize;
+    private final int maxItems;
+    private final List<Purchase> window = new ArrayList<>();  // Newest first
+    private List<Purchase> livePage = Collections.emptyList(); // Newest first
+    private boolean atNewest = true;   // Window starts at the newest purchase
+    private boolean atOldest;          // Nothing older than the window
+    private boolean loading;
+
+    public PurchaseHistoryPager(int pageSize, int maxPages) {
+        this.pageSize = pageSize;
+        this.maxItems = pageSize * Math.max(2, maxPages);
+    }
+
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    // Number of rows to ask the database for when paging from a cursor
+    public int getCursorQuerySize() {
+        return pageSize + 1;
+    }
+
+    public List<Purchase> getWindow() {
+        return Collections.unmodifiableList(window);
+    }
+
+    public boolean isAtNewest() {
+        return atNewest;
+    }
+
+    public boolean canLoadOlder() {
+        return !loading && !atOldest && !window.isEmpty();
+    }
+
+    public boolean canLoadNewer() {
+        return !loading && !atNewest && !window.isEmpty();
+    }
+
+    public void setLoading(boolean loading) {
+        this.loading = loading;
+    }
+
+    // Cursor for the next older page: the oldest purchase in the window
+    public Purchase olderCursor() {
+        return window.isEmpty() ? null : window.get(window.size() - 1);
+    }
+
+    // Cursor for the next newer page: the newest purchase in the window
+    public Purchase newerCursor() {
+        return window.isEmpty() ? null : window.get(0);
+    }
+
+    // Latest result of the live limitToLast(pageSize) query
+    public void onLivePage(List<Purchase> oldestFirst) {
+        livePage = reversed(oldestFirst);
+        if (!atNewest) return;
+
+        // Keep older rows that are not part of the new live page
+        Purchase oldestLive = livePage.isEmpty() ? null : livePage.get(livePage.size() - 1);
+        List<Purchase> older = new ArrayList<>();
+        for (Purchase purchase : window) {
+            if (oldestLive == null || compare(purchase, oldestLive) < 0) {
+                older.add(purchase);
+            }
+        }
+        window.clear();
+        window.addAll(livePage);
+        window.addAll(older);
+        if (livePage.size() < pageSize && older.isEmpty()) {
+            atOldest = true;
+        }
+    }
+
+    // Result of endAt(cursor).limitToLast(pageSize + 1), cursor row included
+    public void onOlderPage(List<Purchase> oldestFirst) {
+        loading = false;
+        List<Purchase> page = withoutCursor(reversed(oldestFirst), olderCursor());
+        atOldest = oldestFirst.size() < getCursorQuerySize();
+        window.addAll(page);
+
+        // Drop whole pages from the newest end to stay within bounds
+        while (window.size() > maxItems) {
+            window.subList(0, pageSize).clear();
+            atNewest = false;
+        }
+    }
+
+    // Result of startAt(cursor).limitToFirst(pageSize + 1), cursor row included
+    public void onNewerPage(List<Purchase> oldestFirst) {
+        loading = false;
+        List<Purchase> page = withoutCursor(reversed(oldestFirst), newerCursor());
+        window.addAll(0, page);
+
+        if (oldestFirst.size() < getCursorQuerySize()) {
+            // Caught up with the live page, show it again
+            atNewest = true;
+            onLivePage(reversed(livePage));
+        }
+
+        // Drop whole pages from the oldest end
+        while (window.size() > maxItems) {
+            window.subList(window.size() - pageSize, window.size()).clear();
+            atOldest = false;
+        }
+    }
+
+    public void clear() {
+        window.clear();
+        livePage = Collections.emptyList();
+        atNewest = true;
+        atOldest = false;
+        loading = false;
+    }
+
+    // Same order as orderByChild("purchaseDate"): date, then key
+    static int compare(Purchase a, Purchase b) {
+        int byDate = Long.compare(a.getPurchaseDate(), b.getPurchaseDate());
+        if (byDate != 0) return byDate;
+        String aId = a.getId() != null ? a.getId() : "";
+        String bId = b.getId() != null ? b.getId() : "";
+        return aId.compareTo(bId);
+    }
+
+    private static List<Purchase> withoutCursor(List<Purchase> page, Purchase cursor) {
+        if (cursor == null) return page;
+        List<Purchase> result = new ArrayList<>(page.size());
+        for (Purchase purchase : page) {
+            if (compare(purchase, cursor) != 0) {
+                result.add(purchase);
+            }
+        }
+        return result;
+    }
+
+    private static List<Purchase> reversed(List<Purchase> purchases) {
+        List<Purchase> result = new ArrayList<>(purchases);
+        Collections.reverse(result);
+        return result;
+    }
+}
@@ -0,0 +1,118 @@
+package edu.uga.cs.roommateshopping.services;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import edu.uga.cs.roommateshopping.models.ModelMapper;
+import edu.uga.cs.roommateshopping.models.Purchase;
+import edu.uga.cs.roommateshopping.models.PurchaseLine;
+import edu.uga.cs.roommateshopping.models.ShoppingItem;
+
+/**
+ * Builds the single multi-location update that returns some of a
+ * purchase's items to the shopping list: the reverse of CheckoutBatch.
+ *
+ * Returned items are written back to shopping_items from their archived
+ * copy, which has every field the item had, with the purchase fields
+ * cleared; the archived copy is removed. An item with no archived copy is
+ * rebuilt from its purchase line. The purchase keeps only the items that
+ * were not returned, or is removed when none are left.
+ * Membership is checked against a set in one pass over the lines, so
+ * the work is linear in the size of the purchase. Ledger deltas for a
+ * removed purchase are added by the caller, they need Firebase types.
+ */
+public class PurchaseReturn {
+    private final Map<String, Object> updates;
+    private final List<PurchaseLine> remainingLines;
+    private final int returnedCount;
+
+    private PurchaseReturn(Map<String, Object> updates, List<PurchaseLine> remainingLines, int returnedCount) {
+        this.updates = updates;
+        this.remainingLines = remainingLines;
+        this.returnedCount = returnedCount;
+    }
+
+    // For items whose archived copies are not at hand, see the three-argument build
+    public static PurchaseReturn build(Purchase purchase, Collection<String> returnedItemIds) {
+        return build(purchase, returnedItemIds, Collections.emptyMap());
+    }
+
+    // Paths are relative to the database root; ids not in the purchase are ignored.
+    // archivedItems are the returned items' archived copies by id, as read from archived_items
+    public static PurchaseReturn build(Purchase purchase, Collection<String> returnedItemIds,
+                                       Map<String, ShoppingItem> archivedItems) {
+        Set<String> returned = new HashSet<>(returnedItemIds);
+        List<PurchaseLine> lines = purchase.getLines();
+
+        List<PurchaseLine> remaining = new ArrayList<>(lines.size());
+        Map<String, Object> updates = new HashMap<>(returned.size() * 7 + 4);
+        int returnedCount = 0;
+
+        for (PurchaseLine line : lines) {
+            if (!returned.contains(line.getItemId())) {
+                remaining.add(line);
+                continue;
+            }
+            ShoppingItem archived = archivedItems.get(line.getItemId());
+            if (archived != null) {
+                // The whole record comes back, including fields the line doesn't keep such as addedBy
+                Map<String, Object> restored = ModelMapper.toMap(archived);
+                restored.put("purchased", false);
+                restored.remove("purchasedBy");
+                restored.remove("purchasedDate");
+                updates.put(ShoppingStorage.itemPath(line.getItemId()), restored);
+            } else {
+                String itemPath = ShoppingStorage.itemPath(line.getItemId()) + "/";
+                updates.put(itemPath + "name", line.getName());
+                if (line.getQuantity() > 0) {
+                    // Older purchases did not keep quantity and price
+                    updates.put(itemPath + "quantity", line.getQuantity());
+                    updates.put(itemPath + "price", line.getUnitPrice());
+                }
+                updates.put(itemPath + "purchased", false);
+                updates.put(itemPath + "purchasedBy", null);
+                updates.put(itemPath + "purchasedDate", null);
+            }
+            updates.put(ShoppingStorage.archivedItemPath(line.getItemId()), null);
+            returnedCount++;
+        }
+        if (returnedCount == 0) {
+            return new PurchaseReturn(new HashMap<>(), remaining, 0);
+        }
+
+        // The total is kept, it is what the group paid for the purchase
+        String purchasePath = ShoppingStorage.purchasePath(purchase.getId());
+        if (remaining.isEmpty()) {
+            updates.put(purchasePath, null);
+        } else {
+            updates.put(purchasePath + "/lines", remaining);
+            // Drop the lists an older purchase was stored with, lines replace them
+            updates.put(purchasePath + "/itemIds", null);
+            updates.put(purchasePath + "/itemNames", null);
+        }
+        return new PurchaseReturn(updates, remaining, returnedCount);
+    }
+
+    public Map<String, Object> getUpdates() {
+        return updates;
+    }
+
+    public List<PurchaseLine> getRemainingLines() {
+        return remainingLines;
+    }
+
+    public int getReturnedCount() {
+        return returnedCount;
+    }
+
+    // True when every item was returned and the purchase is deleted
+    public boolean removesPurchase() {
+        return returnedCount > 0 && remainingLines.isEmpty();
+    }
+}
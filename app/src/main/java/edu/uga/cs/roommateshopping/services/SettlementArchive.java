@@ -0,0 +1,101 @@
+package edu.uga.cs.roommateshopping.services;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import edu.uga.cs.roommateshopping.models.ModelMapper;
+import edu.uga.cs.roommateshopping.models.Purchase;
+import edu.uga.cs.roommateshopping.models.PurchaseLine;
+
+/**
+ * Plans settling up: the settled purchases leave the live purchases node
+ * for purchase_archive/<settlementId>, and a compact summary of them is
+ * kept at settlements/<settlementId>.
+ *
+ * The work is split into batches of at most MAX_PURCHASES_PER_BATCH
+ * purchases, oldest first, each a multi-path update applied in order.
+ * Every batch takes its purchases off the ledger and adds them to the
+ * summary with server-side increments, in the same write that moves them.
+ * The summary and the ledger therefore always match what has actually
+ * been archived, even if a batch fails part way, and a purchase made while
+ * settling stays live and on the ledger.
+ */
+public class SettlementArchive {
+    public static final String SETTLEMENTS_PATH = "settlements";
+    public static final String ARCHIVE_PATH = "purchase_archive";
+    public static final int MAX_PURCHASES_PER_BATCH = 100;
+
+    private SettlementArchive() {}
+
+    public static String settlementPath(String settlementId) {
+        return SETTLEMENTS_PATH + "/" + settlementId;
+    }
+
+    public static String archivedPurchasePath(String settlementId, String purchaseId) {
+        return ARCHIVE_PATH + "/" + settlementId + "/" + purchaseId;
+    }
+
+    // Empty when there is nothing to settle
+    public static List<Map<String, Object>> plan(String settlementId, List<Purchase> purchases, long settledAt) {
+        List<Purchase> ordered = new ArrayList<>(purchases);
+        ordered.sort(Comparator.comparingLong(Purchase::getPurchaseDate));
+
+        String summaryPath = settlementPath(settlementId);
+        List<Map<String, Object>> batches = new ArrayList<>();
+        for (int start = 0; start < ordered.size(); start += MAX_PURCHASES_PER_BATCH) {
+            List<Purchase> chunk = ordered.subList(start, Math.min(start + MAX_PURCHASES_PER_BATCH, ordered.size()));
+            Map<String, Object> batch = new HashMap<>(chunk.size() * 2 + 16);
+            Map<String, Long> ledgerDeltas = new HashMap<>();
+            Map<String, Long> summaryDeltas = new HashMap<>();
+
+            for (Purchase purchase : chunk) {
+                batch.put(archivedPurchasePath(settlementId, purchase.getId()), ModelMapper.toMap(purchase));
+                batch.put(ShoppingStorage.purchasePath(purchase.getId()), null);
+                merge(ledgerDeltas, SpendingLedger.purchaseRemoved(purchase));
+
+                long cents = purchase.getTotalCents();
+                merge(summaryDeltas, summaryPath + "/spending/" + SpendingLedger.userKey(purchase.getPurchasedBy()), cents);
+                merge(summaryDeltas, summaryPath + "/totalCents", cents);
+                merge(summaryDeltas, summaryPath + "/purchaseCount", 1);
+                merge(summaryDeltas, summaryPath + "/itemCount", itemCount(purchase));
+            }
+            for (Map.Entry<String, Long> delta : ledgerDeltas.entrySet()) {
+                batch.put(delta.getKey(), ShoppingStorage.increment(delta.getValue()));
+            }
+            for (Map.Entry<String, Long> delta : summaryDeltas.entrySet()) {
+                batch.put(delta.getKey(), ShoppingStorage.increment(delta.getValue()));
+            }
+
+            // The period covered, from the oldest purchase to the newest archived so far
+            if (start == 0) {
+                batch.put(summaryPath + "/settledAt", settledAt);
+                batch.put(summaryPath + "/from", chunk.get(0).getPurchaseDate());
+            }
+            batch.put(summaryPath + "/to", chunk.get(chunk.size() - 1).getPurchaseDate());
+            batches.add(batch);
+        }
+        return batches;
+    }
+
+    // Units bought; lines from before quantities were kept count as one
+    static long itemCount(Purchase purchase) {
+        long count = 0;
+        for (PurchaseLine line : purchase.getLines()) {
+            count += Math.max(1, line.getQuantity());
+        }
+        return count;
+    }
+
+    private static void merge(Map<String, Long> into, Map<String, Long> deltas) {
+        for (Map.Entry<String, Long> delta : deltas.entrySet()) {
+            merge(into, delta.getKey(), delta.getValue());
+        }
+    }
+
+    private static void merge(Map<String, Long> into, String path, long delta) {
+        into.merge(path, delta, Long::sum);
+    }
+}
@@ -0,0 +1,134 @@
+package edu.uga.cs.roommateshopping.services;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+import edu.uga.cs.roommateshopping.models.Money;
+
+/**
+ * Works out who pays whom to settle the household's costs.
+ *
+ * Everyone owes an equal share of the total; the share is split in whole
+ * cents and any leftover cents go to the first members in sorted order, so
+ * the shares add up to the total exactly. The difference between what a
+ * member spent and their share is their balance, and balances are settled
+ * greedily: the largest debtor pays the largest creditor until one of them
+ * is square. That needs at most (members - 1) transfers and runs in
+ * O(n log n). Pure Java, no Android or Firebase types.
+ */
+public class SettlementEngine {
+
+    private SettlementEngine() {}
+
+    // A single payment of cents from one member to another
+    public static class Transfer {
+        private final String from;
+        private final String to;
+        private final long cents;
+
+        public Transfer(String from, String to, long cents) {
+            this.from = from;
+            this.to = to;
+            this.cents = cents;
+        }
+
+        public String getFrom() {
+            return from;
+        }
+
+        public String getTo() {
+            return to;
+        }
+
+        public long getCents() {
+            return cents;
+        }
+
+        @Override
+        public String toString() {
+            return from + " -> " + to + ": " + cents;
+        }
+    }
+
+    private static class Balance {
+        final String member;
+        long cents;
+
+        Balance(String member, long cents) {
+            this.member = member;
+            this.cents = cents;
+        }
+    }
+
+    /**
+     * @param spendingCents what each member spent, every member must be present (0 if nothing)
+     * @return the transfers that bring every member to an equal share
+     */
+    public static List<Transfer> settle(Map<String, Long> spendingCents) {
+        int memberCount = spendingCents.size();
+        if (memberCount < 2) return Collections.emptyList();
+
+        List<String> members = sortedMembers(spendingCents);
+        long[] shares = Money.split(total(spendingCents), memberCount);
+
+        // Largest amount first in both heaps
+        PriorityQueue<Balance> debtors = new PriorityQueue<>(memberCount, (a, b) -> Long.compare(b.cents, a.cents));
+        PriorityQueue<Balance> creditors = new PriorityQueue<>(memberCount, (a, b) -> Long.compare(b.cents, a.cents));
+        for (int i = 0; i < memberCount; i++) {
+            String member = members.get(i);
+            long balance = spendingCents.get(member) - shares[i];
+            if (balance < 0) {
+                debtors.add(new Balance(member, -balance));
+            } else if (balance > 0) {
+                creditors.add(new Balance(member, balance));
+            }
+        }
+
+        List<Transfer> transfers = new ArrayList<>(Math.max(0, memberCount - 1));
+        while (!debtors.isEmpty() && !creditors.isEmpty()) {
+            Balance debtor = debtors.poll();
+            Balance creditor = creditors.poll();
+            long amount = Math.min(debtor.cents, creditor.cents);
+            transfers.add(new Transfer(debtor.member, creditor.member, amount));
+
+            debtor.cents -= amount;
+            creditor.cents -= amount;
+            if (debtor.cents > 0) debtors.add(debtor);
+            if (creditor.cents > 0) creditors.add(creditor);
+        }
+        return transfers;
+    }
+
+    /**
+     * @param spendingCents what each member spent, as for settle()
+     * @return each member's equal share of the total, the same shares settle() balances against
+     */
+    public static Map<String, Long> shares(Map<String, Long> spendingCents) {
+        List<String> members = sortedMembers(spendingCents);
+        if (members.isEmpty()) return Collections.emptyMap();
+        long[] shares = Money.split(total(spendingCents), members.size());
+        Map<String, Long> byMember = new HashMap<>(members.size() * 2);
+        for (int i = 0; i < members.size(); i++) {
+            byMember.put(members.get(i), shares[i]);
+        }
+        return byMember;
+    }
+
+    private static List<String> sortedMembers(Map<String, Long> spendingCents) {
+        List<String> members = new ArrayList<>(spendingCents.keySet());
+        Collections.sort(members);
+        return members;
+    }
+
+    private static long total(Map<String, Long> spendingCents) {
+        long total = 0;
+        for (long cents : spendingCents.values()) {
+            total += cents;
+        }
+        return total;
+    }
+}
@@ -1,58 +1,49 @@
 package edu.uga.cs.roommateshopping.services;
 
-import androidx.annotation.NonNull;
-
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseUser;
-import com.google.firebase.database.DataSnapshot;
-import com.google.firebase.database.DatabaseError;
-import com.google.firebase.database.DatabaseReference;
-import com.google.firebase.database.FirebaseDatabase;
-import com.google.firebase.database.ValueEventListener;
 
-import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
 
+import edu.uga.cs.roommateshopping.models.Money;
 import edu.uga.cs.roommateshopping.models.Purchase;
 import edu.uga.cs.roommateshopping.models.ShoppingItem;
 
 public class ShoppingBasketServices {
-    private final DatabaseReference shoppingListRef;
-    private final DatabaseReference basketRef;
-    private final DatabaseReference purchaseRef;
+    private final ShoppingStorage storage;
     private final String userId;
+    private final String userEmail;
+    private final String basketPath;
 
+    // Uses the Realtime Database and the signed-in user
     public ShoppingBasketServices() {
-        FirebaseDatabase database = FirebaseDatabase.getInstance();
-        FirebaseUser currentUser = FirebaseAuth.getInstance().getCurrentUser();
-
-        if (currentUser != null) {
-            userId = currentUser.getUid(); // Get the user ID if authenticated
-            shoppingListRef = database.getReference("shopping_items");
-            basketRef = database.getReference("users").child(userId).child("shopping_basket");
-            purchaseRef = database.getReference("purchases");
-        } else {
-            userId = null; // User is not authenticated
-            shoppingListRef = null;
-            basketRef = null;
-            purchaseRef = null;
-        }
+        this(new FirebaseShoppingStorage(), FirebaseAuth.getInstance().getCurrentUser());
+    }
+
+    private ShoppingBasketServices(ShoppingStorage storage, FirebaseUser user) {
+        this(storage, user != null ? user.getUid() : null, user != null ? user.getEmail() : null);
+    }
+
+    // The basket is keyed by userId, purchases and the ledger by userEmail like every other writer
+    public ShoppingBasketServices(ShoppingStorage storage, String userId, String userEmail) {
+        this.storage = storage;
+        this.userId = userId; // Null if the user is not authenticated
+        this.userEmail = userEmail; // Null if the account has no email
+        this.basketPath = userId != null ? ShoppingStorage.basketPath(userId) : null;
     }
 
     // Move an item to the shopping list from the basket
     public void moveItemToShoppingList(String itemId, ShoppingItem item, DatabaseCallback callback) {
-        if (userId == null || shoppingListRef == null || basketRef == null) {
+        if (userId == null) {
             callback.onFailure("User not authenticated or database references are null.");
             return;
         }
-        shoppingListRef.child(itemId).setValue(item)
-                .addOnSuccessListener(aVoid -> basketRef.child(itemId).removeValue()
-                        .addOnSuccessListener(aVoid1 -> callback.onSuccess("Item moved to shopping list"))
-                        .addOnFailureListener(e -> callback.onFailure("Failed to remove item from basket: " + e.getMessage())))
-                .addOnFailureListener(e -> callback.onFailure("Failed to add item to shopping list: " + e.getMessage()));
+        Map<String, Object> updates = new HashMap<>();
+        updates.put(ShoppingStorage.itemPath(itemId), item);
+        updates.put(basketPath + "/" + itemId, null);
+        move(updates, "Item moved to shopping list", "Failed to move item to shopping list: ", callback);
     }
 
     // Move an item to the shopping basket from the shopping list
@@ -61,44 +52,65 @@ public class ShoppingBasketServices {
             callback.onFailure("User not authenticated.");
             return;
         }
+        // Writing the child creates the basket node if needed, no existence check required
+        Map<String, Object> updates = new HashMap<>();
+        updates.put(basketPath + "/" + itemId, item);
+        updates.put(ShoppingStorage.itemPath(itemId), null);
+        move(updates, "Item moved to basket", "Failed to move item to basket: ", callback);
+    }
 
-        // Check if basketRef exists
-        basketRef.get().addOnCompleteListener(task -> {
-            if (!task.isSuccessful()) {
-                callback.onFailure("Failed to check basket existence: " + task.getException().getMessage());
-                return;
+    // Move several items to the basket in one write
+    public void moveItemsToBasket(List<ShoppingItem> items, DatabaseCallback callback) {
+        if (userId == null) {
+            callback.onFailure("User not authenticated.");
+            return;
+        }
+        Map<String, Object> updates = new HashMap<>();
+        for (ShoppingItem item : items) {
+            updates.put(basketPath + "/" + item.getId(), item);
+            updates.put(ShoppingStorage.itemPath(item.getId()), null);
+        }
+        move(updates, items.size() + " items moved to basket", "Failed to move items to basket: ", callback);
+    }
+
+    // Move several items back to the shopping list in one write
+    public void moveItemsToShoppingList(List<ShoppingItem> items, DatabaseCallback callback) {
+        if (userId == null) {
+            callback.onFailure("User not authenticated.");
+            return;
+        }
+        Map<String, Object> updates = new HashMap<>();
+        for (ShoppingItem item : items) {
+            updates.put(ShoppingStorage.itemPath(item.getId()), item);
+            updates.put(basketPath + "/" + item.getId(), null);
+        }
+        move(updates, items.size() + " items moved to shopping list", "Failed to move items to shopping list: ", callback);
+    }
+
+    // Both sides of a move go in one multi-path update, so the item is never in both places or neither
+    private void move(Map<String, Object> updates, String successMessage, String failurePrefix, DatabaseCallback callback) {
+        storage.update(updates, new ShoppingStorage.WriteCallback() {
+            @Override
+            public void onSuccess() {
+                callback.onSuccess(successMessage);
             }
 
-            // If the basket doesn't exist, create it
-            if (!task.getResult().exists()) {
-                basketRef.setValue(new HashMap<>()) // Create an empty basket node
-                        .addOnSuccessListener(aVoid -> {
-                            // After creating the basket, add the item
-                            addItemToBasket(itemId, item, callback);
-                        })
-                        .addOnFailureListener(e -> callback.onFailure("Failed to create basket: " + e.getMessage()));
-            } else {
-                // Basket already exists, proceed to add the item
-                addItemToBasket(itemId, item, callback);
+            @Override
+            public void onFailure(String errorMessage) {
+                callback.onFailure(failurePrefix + errorMessage);
             }
         });
     }
 
-    // Helper method to add an item to the basket and remove it from the shopping list
-    private void addItemToBasket(String itemId, ShoppingItem item, DatabaseCallback callback) {
-        basketRef.child(itemId).setValue(item)
-                .addOnSuccessListener(aVoid -> {
-                    // Remove item from the shopping list
-                    shoppingListRef.child(itemId).removeValue()
-                            .addOnSuccessListener(aVoid1 -> callback.onSuccess("Item moved to basket"))
-                            .addOnFailureListener(e -> callback.onFailure("Failed to remove item from shopping list: " + e.getMessage()));
-                })
-                .addOnFailureListener(e -> callback.onFailure("Failed to add item to basket: " + e.getMessage()));
+    // Check out the basket at its prices plus tax
+    public void checkoutBasket(List<ShoppingItem> basketItems, double taxRate, DatabaseCallback callback) {
+        checkoutBasket(basketItems, CheckoutCalculator.total(basketItems, taxRate), callback);
     }
 
-    // Check out the basket and move items to the purchased list
-    public void checkoutBasket(List<ShoppingItem> basketItems, double taxRate, DatabaseCallback callback) {
-        if (userId == null || basketRef == null) {
+    // Check out the basket at the total the user paid and move items to the purchased list.
+    // This is the app's only checkout write, MainActivity calls it with the total entered at the till
+    public void checkoutBasket(List<ShoppingItem> basketItems, Money totalAmount, DatabaseCallback callback) {
+        if (userId == null) {
             callback.onFailure("User not authenticated or database references are null.");
             return;
         }
@@ -106,48 +118,52 @@ public class ShoppingBasketServices {
             callback.onFailure("Basket is empty.");
             return;
         }
+        // Spending is settled by email, a purchase under any other key would be a phantom member
+        if (userEmail == null || userEmail.isEmpty()) {
+            callback.onFailure("User email not available.");
+            return;
+        }
 
+        Purchase purchase = CheckoutCalculator.buildPurchase(basketItems, totalAmount, userEmail);
 
-        double totalAmount = 0;
-        Map<String, ShoppingItem> itemsMap = new HashMap<>();
-        for (ShoppingItem item : basketItems) {
-            totalAmount += item.getPrice() * item.getQuantity();
-            itemsMap.put(item.getId(), item);
+        String purchaseId = storage.newPurchaseId();
+
+        // The purchase, the archived items, the emptied basket and the ledger aggregates
+        // land together or not at all
+        Map<String, Object> updates = CheckoutBatch.build(basketItems, userId, purchaseId, purchase);
+        for (Map.Entry<String, Long> delta : SpendingLedger.purchaseAdded(purchase).entrySet()) {
+            updates.put(delta.getKey(), ShoppingStorage.increment(delta.getValue()));
         }
-        totalAmount += totalAmount * taxRate;
-
-        Purchase purchase = new Purchase(
-                itemsMap.keySet().stream().collect(Collectors.toList()),
-                itemsMap.values().stream().map(ShoppingItem::getName).collect(Collectors.toList()),
-                totalAmount,
-                userId
-        );
-
-        purchaseRef.push().setValue(purchase)
-                .addOnSuccessListener(aVoid -> basketRef.removeValue()
-                        .addOnSuccessListener(aVoid1 -> callback.onSuccess("Checkout successful!"))
-                        .addOnFailureListener(e -> callback.onFailure("Failed to clear basket: " + e.getMessage())))
-                .addOnFailureListener(e -> callback.onFailure("Failed to save purchase: " + e.getMessage()));
+        updates.putAll(SpendingLedger.lastPurchaseUpdate(purchase));
+
+        storage.update(updates, new ShoppingStorage.WriteCallback() {
+            @Override
+            public void onSuccess() {
+                callback.onSuccess("Checkout successful!");
+            }
+
+            @Override
+            public void onFailure(String errorMessage) {
+                callback.onFailure("Failed to save purchase: " + errorMessage);
+            }
+        });
     }
 
     // Fetch all items in the shopping basket
     public void getBasketItems(FetchBasketCallback callback) {
-        basketRef.addListenerForSingleValueEvent(new ValueEventListener() {
+        if (userId == null) {
+            callback.onFailure("User not authenticated.");
+            return;
+        }
+        storage.getItems(basketPath, new ShoppingStorage.Callback<List<ShoppingItem>>() {
             @Override
-            public void onDataChange(@NonNull DataSnapshot snapshot) {
-                List<ShoppingItem> basketItems = new ArrayList<>();
-                for (DataSnapshot itemSnapshot : snapshot.getChildren()) {
-                    ShoppingItem item = itemSnapshot.getValue(ShoppingItem.class);
-                    if (item != null) {
-                        basketItems.add(item);
-                    }
-                }
+            public void onSuccess(List<ShoppingItem> basketItems) {
                 callback.onSuccess(basketItems);
             }
 
             @Override
-            public void onCancelled(@NonNull DatabaseError error) {
-                callback.onFailure("Failed to fetch basket items: " + error.getMessage());
+            public void onFailure(String errorMessage) {
+                callback.onFailure("Failed to fetch basket items: " + errorMessage);
             }
         });
     }
@@ -0,0 +1,118 @@
+package edu.uga.cs.roommateshopping.services;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import edu.uga.cs.roommateshopping.models.ShoppingItem;
+
+/**
+ * Word-prefix index over item names, for searching the shopping list
+ * without scanning it.
+ *
+ * Names are split into lower-case words of letters and digits. Words are
+ * kept sorted, so the words starting with a prefix are one contiguous
+ * range of the map. A query matches an item when every word of the query
+ * is a prefix of some word of the name: "whole mi" finds "Whole milk".
+ *
+ * ShoppingListSync keeps the index in step as items are added, renamed and
+ * removed, so each change re-indexes only the item it touches.
+ */
+public class ShoppingListIndex {
+    private final TreeMap<String, Set<String>> idsByWord = new TreeMap<>();
+    private final Map<String, String[]> wordsById = new HashMap<>();
+
+    // Adds the item, or re-indexes it if its name changed
+    public void put(ShoppingItem item) {
+        String[] words = words(item.getName());
+        String[] previous = wordsById.put(item.getId(), words);
+        if (previous != null) {
+            if (Arrays.equals(previous, words)) return;
+            unlink(item.getId(), previous);
+        }
+        for (String word : words) {
+            idsByWord.computeIfAbsent(word, w -> new HashSet<>()).add(item.getId());
+        }
+    }
+
+    public void remove(String itemId) {
+        String[] words = wordsById.remove(itemId);
+        if (words != null) {
+            unlink(itemId, words);
+        }
+    }
+
+    public void clear() {
+        idsByWord.clear();
+        wordsById.clear();
+    }
+
+    public int size() {
+        return wordsById.size();
+    }
+
+    // Ids of the items matching every word of the query; empty for a blank query
+    public Set<String> search(String query) {
+        String[] queryWords = words(query);
+        if (queryWords.length == 0) {
+            return Collections.emptySet();
+        }
+
+        // Narrowest word first, so later words only filter an already small set
+        List<Set<String>> matches = new ArrayList<>(queryWords.length);
+        for (String word : queryWords) {
+            Set<String> ids = idsWithPrefix(word);
+            if (ids.isEmpty()) {
+                return Collections.emptySet();
+            }
+            matches.add(ids);
+        }
+        matches.sort((a, b) -> Integer.compare(a.size(), b.size()));
+
+        Set<String> result = matches.get(0);
+        for (int i = 1; i < matches.size() && !result.isEmpty(); i++) {
+            result.retainAll(matches.get(i));
+        }
+        return result;
+    }
+
+    private Set<String> idsWithPrefix(String prefix) {
+        Set<String> ids = new HashSet<>();
+        // Every word starting with prefix sorts between prefix and prefix + the highest char
+        for (Set<String> wordIds : idsByWord.subMap(prefix, true, prefix + Character.MAX_VALUE, true).values()) {
+            ids.addAll(wordIds);
+        }
+        return ids;
+    }
+
+    private void unlink(String itemId, String[] words) {
+        for (String word : words) {
+            Set<String> ids = idsByWord.get(word);
+            if (ids != null && ids.remove(itemId) && ids.isEmpty()) {
+                idsByWord.remove(word);
+            }
+        }
+    }
+
+    // Distinct lower-case words of letters and digits
+    static String[] words(String text) {
+        if (text == null) {
+            return new String[0];
+        }
+        Set<String> words = new LinkedHashSet<>();
+        for (String word : text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{Nd}]+")) {
+            if (!word.isEmpty()) {
+                words.add(word);
+            }
+        }
+        return words.toArray(new String[0]);
+    }
+}
@@ -0,0 +1,256 @@
+package edu.uga.cs.roommateshopping.services;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import edu.uga.cs.roommateshopping.models.ShoppingItem;
+
+/**
+ * Keeps an ordered, id-indexed copy of the open shopping list in step with the
+ * child added/changed/removed/moved events of the database query and reports
+ * every change to a {@link Listener} as a single targeted position update
+ * (or one range update for bulk operations).
+ *
+ * This class has no Firebase dependency: the activity translates each child
+ * event into one of the apply methods, so the whole thing can be driven from
+ * plain unit tests.
+ *
+ * Item names are also kept in a ShoppingListIndex, updated with each
+ * change, which search() uses instead of scanning the list.
+ */
+public class ShoppingListSync {
+    private final List<ShoppingItem> items = new ArrayList<>();
+    private final List<ShoppingItem> readOnlyItems = Collections.unmodifiableList(items);
+    private final Map<String, Integer> positions = new HashMap<>();
+    private final ShoppingListIndex index = new ShoppingListIndex();
+    private Listener listener;
+
+    // Callback for targeted list updates, positions are after the change
+    public interface Listener {
+        void onItemInserted(int position);
+
+        void onItemChanged(int position);
+
+        void onItemRemoved(int position);
+
+        void onItemMoved(int fromPosition, int toPosition);
+
+        void onItemRangeInserted(int positionStart, int itemCount);
+
+        void onItemRangeRemoved(int positionStart, int itemCount);
+    }
+
+    public void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    // Detaches listener unless another one has replaced it since, e.g. a recreated screen's
+    public void removeListener(Listener listener) {
+        if (this.listener == listener) {
+            this.listener = null;
+        }
+    }
+
+    // Live, read-only view of the current list
+    public List<ShoppingItem> getItems() {
+        return readOnlyItems;
+    }
+
+    public int size() {
+        return items.size();
+    }
+
+    public ShoppingItem get(int position) {
+        return items.get(position);
+    }
+
+    // Items whose name matches the query (see ShoppingListIndex), in list order
+    public List<ShoppingItem> search(String query) {
+        Set<String> ids = index.search(query);
+        int[] matched = new int[ids.size()];
+        int count = 0;
+        for (String itemId : ids) {
+            Integer position = positions.get(itemId);
+            if (position != null) {
+                matched[count++] = position;
+            }
+        }
+        Arrays.sort(matched, 0, count);
+        List<ShoppingItem> result = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            result.add(items.get(matched[i]));
+        }
+        return result;
+    }
+
+    public ShoppingItem findById(String itemId) {
+        Integer position = positions.get(itemId);
+        return position != null ? items.get(position) : null;
+    }
+
+    public int indexOf(String itemId) {
+        Integer position = positions.get(itemId);
+        return position != null ? position : -1;
+    }
+
+    // A child was added after previousId (null means first in query order)
+    public void applyAdded(ShoppingItem item, String previousId) {
+        if (positions.containsKey(item.getId())) {
+            // Replayed or locally re-added item, treat it as a change
+            applyChanged(item, previousId);
+            return;
+        }
+        int position = insertionPoint(previousId);
+        insert(position, item);
+        if (listener != null) {
+            listener.onItemInserted(position);
+        }
+    }
+
+    // Appends an item at the end of the list, used for local moves back from the basket
+    public void append(ShoppingItem item) {
+        String lastId = items.isEmpty() ? null : items.get(items.size() - 1).getId();
+        applyAdded(item, lastId);
+    }
+
+    public void applyChanged(ShoppingItem item, String previousId) {
+        Integer position = positions.get(item.getId());
+        if (position == null) {
+            // We never saw this child (e.g. it was hidden locally), so insert it
+            applyAdded(item, previousId);
+            return;
+        }
+        items.set(position, item);
+        index.put(item);
+        if (listener != null) {
+            listener.onItemChanged(position);
+        }
+    }
+
+    public void applyRemoved(String itemId) {
+        Integer position = positions.remove(itemId);
+        if (position == null) return;
+        index.remove(itemId);
+
+        items.remove((int) position);
+        reindexFrom(position);
+        if (listener != null) {
+            listener.onItemRemoved(position);
+        }
+    }
+
+    public void applyMoved(String itemId, String previousId) {
+        Integer from = positions.get(itemId);
+        if (from == null) return;
+
+        ShoppingItem item = items.remove((int) from);
+        positions.remove(itemId);
+        reindexFrom(from);
+
+        int to = insertionPoint(previousId);
+        insert(to, item);
+        if (listener != null && from != to) {
+            listener.onItemMoved(from, to);
+        }
+    }
+
+    // Removes several items in one pass; each run of adjacent rows is reported as one range,
+    // last run first so every range is valid at the time it is reported
+    public void applyRemovedAll(Collection<String> itemIds) {
+        boolean[] removed = new boolean[items.size()];
+        int first = items.size();
+        for (String itemId : itemIds) {
+            Integer position = positions.remove(itemId);
+            if (position != null) {
+                index.remove(itemId);
+                removed[position] = true;
+                first = Math.min(first, position);
+            }
+        }
+        if (first == items.size()) return;
+
+        // Compact the survivors in place, collecting runs of removed rows
+        List<int[]> runs = new ArrayList<>();
+        int write = first;
+        for (int read = first; read < removed.length; read++) {
+            if (removed[read]) {
+                int[] last = runs.isEmpty() ? null : runs.get(runs.size() - 1);
+                if (last != null && last[0] + last[1] == read) {
+                    last[1]++;
+                } else {
+                    runs.add(new int[]{read, 1});
+                }
+            } else {
+                items.set(write++, items.get(read));
+            }
+        }
+        items.subList(write, items.size()).clear();
+        reindexFrom(first);
+
+        if (listener != null) {
+            for (int i = runs.size() - 1; i >= 0; i--) {
+                listener.onItemRangeRemoved(runs.get(i)[0], runs.get(i)[1]);
+            }
+        }
+    }
+
+    // Appends several items at the end, reported as one inserted range; items already
+    // in the list are updated in place instead
+    public void appendAll(List<ShoppingItem> newItems) {
+        int start = items.size();
+        for (ShoppingItem item : newItems) {
+            Integer position = positions.get(item.getId());
+            index.put(item);
+            if (position != null) {
+                items.set(position, item);
+                if (listener != null) {
+                    listener.onItemChanged(position);
+                }
+            } else {
+                positions.put(item.getId(), items.size());
+                items.add(item);
+            }
+        }
+        if (listener != null && items.size() > start) {
+            listener.onItemRangeInserted(start, items.size() - start);
+        }
+    }
+
+    // Drops everything, e.g. on logout; reported as a run of removals from the end
+    public void clear() {
+        for (int position = items.size() - 1; position >= 0; position--) {
+            items.remove(position);
+            if (listener != null) {
+                listener.onItemRemoved(position);
+            }
+        }
+        positions.clear();
+        index.clear();
+    }
+
+    private int insertionPoint(String previousId) {
+        if (previousId == null) return 0;
+        Integer previous = positions.get(previousId);
+        // Unknown predecessor (hidden locally or not delivered yet): append
+        return previous != null ? previous + 1 : items.size();
+    }
+
+    private void insert(int position, ShoppingItem item) {
+        items.add(position, item);
+        positions.put(item.getId(), position);
+        index.put(item);
+        reindexFrom(position + 1);
+    }
+
+    private void reindexFrom(int start) {
+        for (int i = start; i < items.size(); i++) {
+            positions.put(items.get(i).getId(), i);
+        }
+    }
+}
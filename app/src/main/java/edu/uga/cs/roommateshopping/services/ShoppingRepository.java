@@ -0,0 +1,592 @@
+package edu.uga.cs.roommateshopping.services;
+
+import androidx.annotation.NonNull;
+
+import com.google.firebase.database.ChildEventListener;
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.DatabaseError;
+import com.google.firebase.database.DatabaseReference;
+import com.google.firebase.database.FirebaseDatabase;
+import com.google.firebase.database.Query;
+import com.google.firebase.database.ServerValue;
+import com.google.firebase.database.ValueEventListener;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import edu.uga.cs.roommateshopping.models.ModelMapper;
+import edu.uga.cs.roommateshopping.models.Money;
+import edu.uga.cs.roommateshopping.models.Purchase;
+import edu.uga.cs.roommateshopping.models.ShoppingItem;
+
+/**
+ * Offline-first access to shopping_items and purchases.
+ *
+ * The database is opened with disk persistence, so listeners are answered
+ * from the on-device copy straight away and writes made while offline are
+ * queued and replayed once a connection is back. shopping_items is kept
+ * synced in the background, which keeps that local copy fresh even while
+ * no screen is listening. purchases is not: screens read the newest page
+ * and older pages on demand, and syncing the node would download the whole
+ * history to every device.
+ */
+public class ShoppingRepository {
+    private static final long CACHE_SIZE_BYTES = 20L * 1024 * 1024;
+
+    private static ShoppingRepository instance;
+
+    private final DatabaseReference rootRef;
+    private final DatabaseReference itemsRef;
+    private final DatabaseReference purchasesRef;
+    private final SubscriptionManager subscriptions = new SubscriptionManager();
+    // Loaded data shared by every screen, outlives any one activity
+    private final ShoppingStateStore state = new ShoppingStateStore();
+
+    private ShoppingRepository(FirebaseDatabase database) {
+        rootRef = database.getReference();
+        itemsRef = rootRef.child("shopping_items");
+        purchasesRef = rootRef.child("purchases");
+        itemsRef.keepSynced(true);
+    }
+
+    // Must run before anything else touches FirebaseDatabase, i.e. from Application.onCreate
+    public static synchronized void init() {
+        if (instance != null) return;
+        FirebaseDatabase database = FirebaseDatabase.getInstance();
+        database.setPersistenceEnabled(true);
+        database.setPersistenceCacheSizeBytes(CACHE_SIZE_BYTES);
+        instance = new ShoppingRepository(database);
+    }
+
+    public static synchronized ShoppingRepository getInstance() {
+        if (instance == null) {
+            init();
+        }
+        return instance;
+    }
+
+    public DatabaseReference getRoot() {
+        return rootRef;
+    }
+
+    public DatabaseReference getPurchasesRef() {
+        return purchasesRef;
+    }
+
+    // Live listeners shared between screens, see subscribeToShoppingList/subscribeToNewestPurchases
+    public SubscriptionManager getSubscriptions() {
+        return subscriptions;
+    }
+
+    public ShoppingStateStore getState() {
+        return state;
+    }
+
+    // Purchased items are archived at checkout, so the open items are the whole node, in key order
+    public Query getOpenItemsQuery() {
+        return itemsRef;
+    }
+
+    // Generates a push key locally, works offline
+    public String newItemId() {
+        return itemsRef.push().getKey();
+    }
+
+    public String newPurchaseId() {
+        return purchasesRef.push().getKey();
+    }
+
+    // Applied to the local copy immediately, the callback fires once the server confirms
+    public void addItem(ShoppingItem item, RepositoryCallback callback) {
+        itemsRef.child(item.getId()).setValue(ModelMapper.toMap(item))
+                .addOnSuccessListener(aVoid -> callback.onSuccess())
+                .addOnFailureListener(e -> callback.onFailure(e.getMessage()));
+    }
+
+    public void updateChildren(Map<String, Object> updates, RepositoryCallback callback) {
+        rootRef.updateChildren(ModelMapper.toDatabaseUpdates(updates))
+                .addOnSuccessListener(aVoid -> callback.onSuccess())
+                .addOnFailureListener(e -> callback.onFailure(e.getMessage()));
+    }
+
+    // Re-prices a purchase and moves the purchaser's ledger entry by the difference in one write.
+    // The difference is taken from the total this client last read, which is written along as
+    // previousTotalAmount; the database rules reject the whole write unless that is still the
+    // stored total, so an edit made from a stale copy can't leave the ledger off
+    public void updatePurchaseTotal(Purchase purchase, Money newAmount, RepositoryCallback callback) {
+        String purchasePath = ShoppingStorage.purchasePath(purchase.getId());
+        Map<String, Object> updates = new HashMap<>();
+        updates.put(purchasePath + "/totalAmount", newAmount.toMajor());
+        updates.put(purchasePath + "/previousTotalAmount", purchase.getTotalAmount());
+        addLedgerDeltas(updates, SpendingLedger.amountChanged(purchase, purchase.getTotal(), newAmount));
+        updateChildren(updates, callback);
+    }
+
+    // Restores a saved basket with a single read of the user's basket node, where
+    // every move to the basket puts its items; the saved order is preserved
+    public void loadBasket(String userId, List<String> itemIds, ItemsCallback callback) {
+        rootRef.child(ShoppingStorage.basketPath(userId)).addListenerForSingleValueEvent(new ValueEventListener() {
+            @Override
+            public void onDataChange(@NonNull DataSnapshot dataSnapshot) {
+                List<ShoppingItem> basketItems = new ArrayList<>((int) dataSnapshot.getChildrenCount());
+                for (DataSnapshot snapshot : dataSnapshot.getChildren()) {
+                    ShoppingItem item = readShoppingItem(snapshot);
+                    if (item != null) {
+                        basketItems.add(item);
+                    }
+                }
+                callback.onItemsLoaded(BasketRestore.resolve(itemIds, basketItems));
+            }
+
+            @Override
+            public void onCancelled(@NonNull DatabaseError error) {
+                callback.onFailure(error.getMessage());
+            }
+        });
+    }
+
+    // Reads the archived copies of the given items, one small read each rather than the whole
+    // archived_items node; items with no archived copy are left out
+    public void loadArchivedItems(Collection<String> itemIds, ItemsCallback callback) {
+        List<ShoppingItem> archived = new ArrayList<>(itemIds.size());
+        if (itemIds.isEmpty()) {
+            callback.onItemsLoaded(archived);
+            return;
+        }
+        int[] remaining = {itemIds.size()};
+        boolean[] failed = {false};
+        for (String itemId : itemIds) {
+            rootRef.child(ShoppingStorage.archivedItemPath(itemId)).addListenerForSingleValueEvent(new ValueEventListener() {
+                @Override
+                public void onDataChange(@NonNull DataSnapshot dataSnapshot) {
+                    ShoppingItem item = readShoppingItem(dataSnapshot);
+                    if (item != null) {
+                        archived.add(item);
+                    }
+                    if (--remaining[0] == 0 && !failed[0]) {
+                        callback.onItemsLoaded(archived);
+                    }
+                }
+
+                @Override
+                public void onCancelled(@NonNull DatabaseError error) {
+                    if (!failed[0]) {
+                        failed[0] = true;
+                        callback.onFailure(error.getMessage());
+                    }
+                }
+            });
+        }
+    }
+
+    // Streams open items into the state store's list while started. Child events reach the sync one by one,
+    // the observer gets the sync once it has caught up with the attached query
+    public SubscriptionManager.Subscription<ShoppingListSync> subscribeToShoppingList(
+            SubscriptionManager.Observer<ShoppingListSync> observer) {
+        return subscriptions.subscription("shopping_items", sink -> {
+            Query query = getOpenItemsQuery();
+            ShoppingListSync openItems = state.getOpenItems();
+            ChildEventListener listener = query.addChildEventListener(openItemsListener(openItems, sink));
+            // Value events fire after the child events for the same data, so this sees the replay
+            // and drops items that were removed while nothing was listening
+            query.addListenerForSingleValueEvent(new ValueEventListener() {
+                @Override
+                public void onDataChange(@NonNull DataSnapshot dataSnapshot) {
+                    List<String> stale = new ArrayList<>();
+                    for (ShoppingItem item : openItems.getItems()) {
+                        if (!dataSnapshot.hasChild(item.getId())) {
+                            stale.add(item.getId());
+                        }
+                    }
+                    openItems.applyRemovedAll(stale);
+                    sink.onValue(openItems);
+                }
+
+                @Override
+                public void onCancelled(@NonNull DatabaseError error) {
+                    sink.onError(error.getMessage());
+                }
+            });
+            return () -> query.removeEventListener(listener);
+        }, observer);
+    }
+
+    // Cached children arrive first. Purchased items only show up here until the layout
+    // migration has archived them, they are left out of the list
+    private static ChildEventListener openItemsListener(ShoppingListSync sync, SubscriptionManager.Observer<?> sink) {
+        return new ChildEventListener() {
+            @Override
+            public void onChildAdded(@NonNull DataSnapshot snapshot, String previousChildName) {
+                ShoppingItem item = readShoppingItem(snapshot);
+                if (item != null && !item.isPurchased()) {
+                    sync.applyAdded(item, previousChildName);
+                }
+            }
+
+            @Override
+            public void onChildChanged(@NonNull DataSnapshot snapshot, String previousChildName) {
+                ShoppingItem item = readShoppingItem(snapshot);
+                if (item == null) return;
+                if (item.isPurchased()) {
+                    sync.applyRemoved(item.getId());
+                } else {
+                    sync.applyChanged(item, previousChildName);
+                }
+            }
+
+            @Override
+            public void onChildRemoved(@NonNull DataSnapshot snapshot) {
+                sync.applyRemoved(snapshot.getKey());
+            }
+
+            @Override
+            public void onChildMoved(@NonNull DataSnapshot snapshot, String previousChildName) {
+                sync.applyMoved(snapshot.getKey(), previousChildName);
+            }
+
+            @Override
+            public void onCancelled(@NonNull DatabaseError error) {
+                sink.onError(error.getMessage());
+            }
+        };
+    }
+
+    // One-shot read of all purchases, for the rare jobs that need the whole history
+    public void loadPurchases(PurchasesCallback callback) {
+        purchasesRef.addListenerForSingleValueEvent(purchasesListener(callback));
+    }
+
+    private Query purchasesByDate() {
+        return purchasesRef.orderByChild("purchaseDate");
+    }
+
+    // Live listener on the newest pageSize purchases only, oldest first; each page is kept in the state store
+    public SubscriptionManager.Subscription<List<Purchase>> subscribeToNewestPurchases(
+            int pageSize, SubscriptionManager.Observer<List<Purchase>> observer) {
+        return subscriptions.subscription("purchases?orderBy=purchaseDate&limitToLast=" + pageSize, sink -> {
+            Query query = purchasesByDate().limitToLast(pageSize);
+            ValueEventListener listener = query.addValueEventListener(purchasesListener(new PurchasesCallback() {
+                @Override
+                public void onPurchasesLoaded(List<Purchase> purchases) {
+                    state.setRecentPurchases(purchases);
+                    sink.onValue(purchases);
+                }
+
+                @Override
+                public void onFailure(String errorMessage) {
+                    sink.onError(errorMessage);
+                }
+            }));
+            return () -> query.removeEventListener(listener);
+        }, observer);
+    }
+
+    // One-shot read of up to count purchases ending at the cursor (inclusive), oldest first
+    public void loadPurchasesBefore(Purchase cursor, int count, PurchasesCallback callback) {
+        purchasesByDate()
+                .endAt(cursor.getPurchaseDate(), cursor.getId())
+                .limitToLast(count)
+                .addListenerForSingleValueEvent(purchasesListener(callback));
+    }
+
+    // One-shot read of up to count purchases starting at the cursor (inclusive), oldest first
+    public void loadPurchasesAfter(Purchase cursor, int count, PurchasesCallback callback) {
+        purchasesByDate()
+                .startAt(cursor.getPurchaseDate(), cursor.getId())
+                .limitToFirst(count)
+                .addListenerForSingleValueEvent(purchasesListener(callback));
+    }
+
+    private static ValueEventListener purchasesListener(PurchasesCallback callback) {
+        return new ValueEventListener() {
+            @Override
+            public void onDataChange(@NonNull DataSnapshot dataSnapshot) {
+                callback.onPurchasesLoaded(readPurchases(dataSnapshot));
+            }
+
+            @Override
+            public void onCancelled(@NonNull DatabaseError error) {
+                callback.onFailure(error.getMessage());
+            }
+        };
+    }
+
+    // Children come back in query order
+    public static List<Purchase> readPurchases(DataSnapshot dataSnapshot) {
+        List<Purchase> purchases = new ArrayList<>((int) dataSnapshot.getChildrenCount());
+        for (DataSnapshot snapshot : dataSnapshot.getChildren()) {
+            Object value = snapshot.getValue();
+            if (value instanceof Map) {
+                purchases.add(ModelMapper.toPurchase(snapshot.getKey(), (Map<?, ?>) value));
+            }
+        }
+        return purchases;
+    }
+
+    // Archives every live purchase under a new settlement with a summary of it, see SettlementArchive
+    public void settlePurchases(RepositoryCallback callback) {
+        loadPurchases(new PurchasesCallback() {
+            @Override
+            public void onPurchasesLoaded(List<Purchase> purchases) {
+                String settlementId = rootRef.child(SettlementArchive.SETTLEMENTS_PATH).push().getKey();
+                applyBatches(SettlementArchive.plan(settlementId, purchases, System.currentTimeMillis()), 0, callback);
+            }
+
+            @Override
+            public void onFailure(String errorMessage) {
+                callback.onFailure(errorMessage);
+            }
+        });
+    }
+
+    // Moves data stored in the old layout, see LayoutMigration. The user's own basket is
+    // checked every time, the shared items only until the schema version says they are done
+    public void migrateLayoutIfNeeded(String userId, RepositoryCallback callback) {
+        readValue(rootRef.child(LayoutMigration.legacyBasketPath(userId)), callback, legacyBasket -> {
+            Map<String, Object> basketMove = LayoutMigration.planBasketMove(userId, legacyBasket);
+            List<Map<String, Object>> batches = new ArrayList<>();
+            if (!basketMove.isEmpty()) {
+                batches.add(basketMove);
+            }
+            rootRef.child(LayoutMigration.SCHEMA_VERSION_PATH).addListenerForSingleValueEvent(new ValueEventListener() {
+                @Override
+                public void onDataChange(@NonNull DataSnapshot versionSnapshot) {
+                    if (!LayoutMigration.isNeeded(versionSnapshot.getValue(Long.class))) {
+                        applyBatches(batches, 0, callback);
+                        return;
+                    }
+                    readValue(itemsRef, callback, items -> {
+                        batches.addAll(LayoutMigration.plan(items));
+                        applyBatches(batches, 0, callback);
+                    });
+                }
+
+                @Override
+                public void onCancelled(@NonNull DatabaseError error) {
+                    callback.onFailure(error.getMessage());
+                }
+            });
+        });
+    }
+
+    private interface MapConsumer {
+        void accept(Map<?, ?> value);
+    }
+
+    private static void readValue(Query query, RepositoryCallback callback, MapConsumer consumer) {
+        query.addListenerForSingleValueEvent(new ValueEventListener() {
+            @Override
+            public void onDataChange(@NonNull DataSnapshot dataSnapshot) {
+                Object value = dataSnapshot.getValue();
+                consumer.accept(value instanceof Map ? (Map<?, ?>) value : null);
+            }
+
+            @Override
+            public void onCancelled(@NonNull DatabaseError error) {
+                callback.onFailure(error.getMessage());
+            }
+        });
+    }
+
+    // One batch at a time, so a failure leaves every earlier batch applied and none after it
+    private void applyBatches(List<Map<String, Object>> batches, int index, RepositoryCallback callback) {
+        if (index == batches.size()) {
+            callback.onSuccess();
+            return;
+        }
+        rootRef.updateChildren(batches.get(index))
+                .addOnSuccessListener(aVoid -> applyBatches(batches, index + 1, callback))
+                .addOnFailureListener(e -> callback.onFailure(e.getMessage()));
+    }
+
+    // Turns ledger deltas into server-side increments inside a multi-path update
+    public static void addLedgerDeltas(Map<String, Object> updates, Map<String, Long> deltas) {
+        for (Map.Entry<String, Long> delta : deltas.entrySet()) {
+            updates.put(delta.getKey(), ServerValue.increment(delta.getValue()));
+        }
+    }
+
+    // Reads the running ledger, a few bytes per user; builds it from history the first time.
+    // The last ledger read is kept in the state store for screens to show while they reload
+    public void loadLedger(LedgerCallback callback) {
+        rootRef.child(SpendingLedger.LEDGER_PATH).addListenerForSingleValueEvent(new ValueEventListener() {
+            @Override
+            public void onDataChange(@NonNull DataSnapshot dataSnapshot) {
+                // Ledgers from before the aggregates were kept are rebuilt once
+                if (!dataSnapshot.hasChild("userCount") || !dataSnapshot.hasChild("purchaseCount")) {
+                    rebuildLedger(callback);
+                    return;
+                }
+                SpendingLedger ledger = readLedger(dataSnapshot);
+                state.setLedger(ledger);
+                callback.onLedgerLoaded(ledger);
+            }
+
+            @Override
+            public void onCancelled(@NonNull DatabaseError error) {
+                callback.onFailure(error.getMessage());
+            }
+        });
+    }
+
+    // Recomputes the ledger from users and the full purchase history and stores it
+    public void rebuildLedger(LedgerCallback callback) {
+        computeLedgerFromHistory(new LedgerCallback() {
+            @Override
+            public void onLedgerLoaded(SpendingLedger ledger) {
+                Map<String, Object> stored = new HashMap<>();
+                stored.put("userCount", ledger.getUserCount());
+                stored.put("spending", new HashMap<>(ledger.getSpendingByKey()));
+                stored.put("totalCents", ledger.getTotalCents());
+                stored.put("purchaseCount", ledger.getPurchaseCount());
+                stored.put("lastPurchaseDate", ledger.getLastPurchaseDate());
+                Map<String, Object> members = new HashMap<>();
+                for (String memberKey : ledger.getMemberKeys()) {
+                    members.put(memberKey, true);
+                }
+                stored.put("members", members);
+                rootRef.child(SpendingLedger.LEDGER_PATH).setValue(stored);
+                state.setLedger(ledger);
+                callback.onLedgerLoaded(ledger);
+            }
+
+            @Override
+            public void onFailure(String errorMessage) {
+                callback.onFailure(errorMessage);
+            }
+        });
+    }
+
+    // Consistency check: compares the stored ledger against a full recomputation
+    public void verifyLedger(VerifyCallback callback) {
+        rootRef.child(SpendingLedger.LEDGER_PATH).addListenerForSingleValueEvent(new ValueEventListener() {
+            @Override
+            public void onDataChange(@NonNull DataSnapshot dataSnapshot) {
+                SpendingLedger stored = readLedger(dataSnapshot);
+                computeLedgerFromHistory(new LedgerCallback() {
+                    @Override
+                    public void onLedgerLoaded(SpendingLedger rebuilt) {
+                        callback.onVerified(stored.diff(rebuilt));
+                    }
+
+                    @Override
+                    public void onFailure(String errorMessage) {
+                        callback.onFailure(errorMessage);
+                    }
+                });
+            }
+
+            @Override
+            public void onCancelled(@NonNull DatabaseError error) {
+                callback.onFailure(error.getMessage());
+            }
+        });
+    }
+
+    private void computeLedgerFromHistory(LedgerCallback callback) {
+        rootRef.child("users").addListenerForSingleValueEvent(new ValueEventListener() {
+            @Override
+            public void onDataChange(@NonNull DataSnapshot dataSnapshot) {
+                long userCount = dataSnapshot.getChildrenCount();
+                List<String> emails = new ArrayList<>();
+                for (DataSnapshot user : dataSnapshot.getChildren()) {
+                    String email = user.child("email").getValue(String.class);
+                    if (email != null) {
+                        emails.add(email);
+                    }
+                }
+                loadPurchases(new PurchasesCallback() {
+                    @Override
+                    public void onPurchasesLoaded(List<Purchase> purchases) {
+                        SpendingLedger ledger = SpendingLedger.rebuild(purchases, userCount);
+                        for (String email : emails) {
+                            ledger.addMember(email);
+                        }
+                        callback.onLedgerLoaded(ledger);
+                    }
+
+                    @Override
+                    public void onFailure(String errorMessage) {
+                        callback.onFailure(errorMessage);
+                    }
+                });
+            }
+
+            @Override
+            public void onCancelled(@NonNull DatabaseError error) {
+                callback.onFailure(error.getMessage());
+            }
+        });
+    }
+
+    private static SpendingLedger readLedger(DataSnapshot ledgerSnapshot) {
+        Long userCount = ledgerSnapshot.child("userCount").getValue(Long.class);
+        Map<String, Long> spending = new HashMap<>();
+        for (DataSnapshot entry : ledgerSnapshot.child("spending").getChildren()) {
+            Long cents = entry.getValue(Long.class);
+            if (cents != null) {
+                spending.put(entry.getKey(), cents);
+            }
+        }
+        Set<String> members = new HashSet<>();
+        for (DataSnapshot member : ledgerSnapshot.child("members").getChildren()) {
+            members.add(member.getKey());
+        }
+        Long totalCents = ledgerSnapshot.child("totalCents").getValue(Long.class);
+        Long purchaseCount = ledgerSnapshot.child("purchaseCount").getValue(Long.class);
+        Long lastPurchaseDate = ledgerSnapshot.child("lastPurchaseDate").getValue(Long.class);
+        return SpendingLedger.fromStored(spending, members, userCount != null ? userCount : 0,
+                totalCents != null ? totalCents : 0,
+                purchaseCount != null ? purchaseCount : 0,
+                lastPurchaseDate != null ? lastPurchaseDate : 0);
+    }
+
+    // Mapped from the raw value by hand, getValue(ShoppingItem.class) goes through reflection per item
+    public static ShoppingItem readShoppingItem(DataSnapshot snapshot) {
+        Object value = snapshot.getValue();
+        if (!(value instanceof Map)) {
+            return null;
+        }
+        return ModelMapper.toShoppingItem(snapshot.getKey(), (Map<?, ?>) value);
+    }
+
+    // Callback for writes
+    public interface RepositoryCallback {
+        void onSuccess();
+
+        void onFailure(String errorMessage);
+    }
+
+    // Callback for item reads
+    public interface ItemsCallback {
+        void onItemsLoaded(List<ShoppingItem> items);
+
+        void onFailure(String errorMessage);
+    }
+
+    // Callback for purchase reads
+    public interface PurchasesCallback {
+        void onPurchasesLoaded(List<Purchase> purchases);
+
+        void onFailure(String errorMessage);
+    }
+
+    // Callback for ledger reads
+    public interface LedgerCallback {
+        void onLedgerLoaded(SpendingLedger ledger);
+
+        void onFailure(String errorMessage);
+    }
+
+    // Callback for ledger verification, mismatches is empty when the ledger is consistent
+    public interface VerifyCallback {
+        void onVerified(List<String> mismatches);
+
+        void onFailure(String errorMessage);
+    }
+}
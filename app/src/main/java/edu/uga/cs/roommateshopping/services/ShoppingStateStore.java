@@ -0,0 +1,114 @@
+package edu.uga.cs.roommateshopping.services;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import edu.uga.cs.roommateshopping.models.ModelMapper;
+import edu.uga.cs.roommateshopping.models.Purchase;
+import edu.uga.cs.roommateshopping.models.ShoppingItem;
+
+/**
+ * Process-wide home for the state the screens share: the open shopping
+ * list, the basket being filled, the newest page of purchases and the
+ * spending ledger.
+ *
+ * It outlives any one activity, so a screen that is recreated or opened
+ * again renders what was already loaded straight away and its listener
+ * only has to bring it up to date, instead of every screen keeping its
+ * own copy and reading it again from scratch. Values are filled in by
+ * the repository as reads and live listeners answer; cleared on logout.
+ *
+ * Not thread-safe: use it from the main thread, where Firebase delivers
+ * its callbacks.
+ */
+public class ShoppingStateStore {
+    private final ShoppingListSync openItems = new ShoppingListSync();
+    private final List<ShoppingItem> basket = new ArrayList<>();
+    private final List<ShoppingItem> basketView = Collections.unmodifiableList(basket);
+    private List<Purchase> recentPurchases;
+    private SpendingLedger ledger;
+
+    // Open items, kept current by the shopping list subscription
+    public ShoppingListSync getOpenItems() {
+        return openItems;
+    }
+
+    // Read-only view of the basket, in the order items were added
+    public List<ShoppingItem> getBasket() {
+        return basketView;
+    }
+
+    // Takes an open item off the list, by id, and onto the end of the basket
+    public void moveToBasket(ShoppingItem item) {
+        openItems.applyRemoved(item.getId());
+        basket.add(item);
+    }
+
+    public void addToBasket(Collection<ShoppingItem> items) {
+        basket.addAll(items);
+    }
+
+    // Removes by id, so copies of the same item read from the database also match
+    public void removeFromBasket(Collection<ShoppingItem> items) {
+        Set<String> ids = new HashSet<>(items.size() * 2);
+        for (ShoppingItem item : items) {
+            ids.add(item.getId());
+        }
+        basket.removeIf(item -> ids.contains(item.getId()));
+    }
+
+    public void setBasket(Collection<ShoppingItem> items) {
+        basket.clear();
+        basket.addAll(items);
+    }
+
+    public void clearBasket() {
+        basket.clear();
+    }
+
+    // Ids in basket order, what a screen saves to survive the process being killed
+    public ArrayList<String> getBasketIds() {
+        ArrayList<String> ids = new ArrayList<>(basket.size());
+        for (ShoppingItem item : basket) {
+            ids.add(item.getId());
+        }
+        return ids;
+    }
+
+    // Last newest-purchases page received, oldest first; null until one has arrived
+    public List<Purchase> getRecentPurchases() {
+        return recentPurchases;
+    }
+
+    public void setRecentPurchases(List<Purchase> purchases) {
+        recentPurchases = Collections.unmodifiableList(new ArrayList<>(purchases));
+    }
+
+    // Last ledger read; null until one has been loaded
+    public SpendingLedger getLedger() {
+        return ledger;
+    }
+
+    public void setLedger(SpendingLedger ledger) {
+        this.ledger = ledger;
+    }
+
+    // After a settlement the cached page and ledger describe history that is gone
+    public void clearPurchases() {
+        recentPurchases = null;
+        ledger = null;
+    }
+
+    // Drops everything, for when the user signs out
+    public void clear() {
+        openItems.clear();
+        basket.clear();
+        recentPurchases = null;
+        ledger = null;
+        ModelMapper.getStringPool().clear();
+    }
+}
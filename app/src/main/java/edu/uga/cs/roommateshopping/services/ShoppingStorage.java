@@ -0,0 +1,71 @@
+package edu.uga.cs.roommateshopping.services;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import edu.uga.cs.roommateshopping.models.Purchase;
+import edu.uga.cs.roommateshopping.models.ShoppingItem;
+
+/**
+ * The database paths the shopping flow reads and writes, without tying
+ * callers to Firebase.
+ *
+ * Writes go through update(), a multi-path update that is applied
+ * atomically: values are models, maps, lists or primitives, and null
+ * deletes the path. FirebaseShoppingStorage runs against the real database;
+ * InMemoryShoppingStorage runs the same flow on the JVM for tests and
+ * benchmarks.
+ */
+public interface ShoppingStorage {
+    // Open items only, the shopping list reads this node whole
+    String ITEMS_PATH = "shopping_items";
+    // Purchased items, moved here at checkout
+    String ARCHIVED_ITEMS_PATH = "archived_items";
+    // One basket per user, read only by that user
+    String BASKETS_PATH = "baskets";
+    String PURCHASES_PATH = "purchases";
+
+    static String itemPath(String itemId) {
+        return ITEMS_PATH + "/" + itemId;
+    }
+
+    static String archivedItemPath(String itemId) {
+        return ARCHIVED_ITEMS_PATH + "/" + itemId;
+    }
+
+    static String basketPath(String userId) {
+        return BASKETS_PATH + "/" + userId;
+    }
+
+    static String purchasePath(String purchaseId) {
+        return PURCHASES_PATH + "/" + purchaseId;
+    }
+
+    // Same value as ServerValue.increment(delta): the server adds delta to what is stored
+    static Object increment(long delta) {
+        return Collections.singletonMap(".sv", Collections.singletonMap("increment", delta));
+    }
+
+    // Generates a unique, time-ordered key without a round trip
+    String newPurchaseId();
+
+    // Items stored under ITEMS_PATH, ARCHIVED_ITEMS_PATH or a basketPath, in key order
+    void getItems(String path, Callback<List<ShoppingItem>> callback);
+
+    void getPurchases(Callback<List<Purchase>> callback);
+
+    void update(Map<String, Object> updates, WriteCallback callback);
+
+    interface Callback<T> {
+        void onSuccess(T result);
+
+        void onFailure(String errorMessage);
+    }
+
+    interface WriteCallback {
+        void onSuccess();
+
+        void onFailure(String errorMessage);
+    }
+}
@@ -0,0 +1,235 @@
+package edu.uga.cs.roommateshopping.services;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import edu.uga.cs.roommateshopping.models.Money;
+import edu.uga.cs.roommateshopping.models.Purchase;
+
+/**
+ * Running spending aggregates, stored under the "ledger" node: spend per
+ * user, total spend, purchase count and the date of the last checkout.
+ *
+ * Every write that adds, re-prices or removes a purchase also carries the
+ * matching ledger deltas (see purchaseAdded/amountChanged/purchaseRemoved),
+ * so the settle screen and any dashboard only have to read one small node
+ * instead of the whole purchase history. rebuild() recomputes the same
+ * aggregates from the history and diff() reports where a stored ledger
+ * disagrees with it.
+ *
+ * The last purchase date is a plain write at checkout (lastPurchaseUpdate),
+ * there is no server-side max. It is not moved back when a purchase is
+ * returned, so a stored date later than the history's newest is consistent.
+ *
+ * Amounts are kept in cents so incremental updates never drift.
+ */
+public class SpendingLedger {
+    public static final String LEDGER_PATH = "ledger";
+    public static final String SPENDING_PATH = LEDGER_PATH + "/spending";
+    public static final String USER_COUNT_PATH = LEDGER_PATH + "/userCount";
+    public static final String MEMBERS_PATH = LEDGER_PATH + "/members";
+    public static final String TOTAL_PATH = LEDGER_PATH + "/totalCents";
+    public static final String PURCHASE_COUNT_PATH = LEDGER_PATH + "/purchaseCount";
+    public static final String LAST_PURCHASE_DATE_PATH = LEDGER_PATH + "/lastPurchaseDate";
+
+    private final Map<String, Long> spendingCents = new HashMap<>();  // Keyed by userKey
+    private final Set<String> memberKeys = new HashSet<>();           // Registered users, by userKey
+    private long totalCents;
+    private long purchaseCount;
+    private long lastPurchaseDate;
+    private long userCount;
+
+    public SpendingLedger(long userCount) {
+        this.userCount = userCount;
+    }
+
+    // Database keys can't contain '.', so emails are stored with ',' instead
+    public static String userKey(String email) {
+        return email == null ? "unknown" : email.replace('.', ',');
+    }
+
+    public static String userEmail(String userKey) {
+        return userKey.replace(',', '.');
+    }
+
+    public static String spendingPath(String email) {
+        return SPENDING_PATH + "/" + userKey(email);
+    }
+
+    public static String memberPath(String email) {
+        return MEMBERS_PATH + "/" + userKey(email);
+    }
+
+    // Deltas are keyed by database path and meant to be merged into the same multi-path update
+    public static Map<String, Long> purchaseAdded(Purchase purchase) {
+        return delta(purchase.getPurchasedBy(), purchase.getTotalCents(), 1);
+    }
+
+    public static Map<String, Long> amountChanged(Purchase purchase, Money oldAmount, Money newAmount) {
+        return delta(purchase.getPurchasedBy(), newAmount.minus(oldAmount).getMinorUnits(), 0);
+    }
+
+    public static Map<String, Long> purchaseRemoved(Purchase purchase) {
+        return delta(purchase.getPurchasedBy(), -purchase.getTotalCents(), -1);
+    }
+
+    private static Map<String, Long> delta(String email, long cents, long purchases) {
+        Map<String, Long> deltas = new HashMap<>(4);
+        if (cents != 0) {
+            deltas.put(spendingPath(email), cents);
+            deltas.put(TOTAL_PATH, cents);
+        }
+        if (purchases != 0) {
+            deltas.put(PURCHASE_COUNT_PATH, purchases);
+        }
+        return deltas;
+    }
+
+    // Plain value written next to purchaseAdded's deltas at checkout
+    public static Map<String, Object> lastPurchaseUpdate(Purchase purchase) {
+        return Collections.singletonMap(LAST_PURCHASE_DATE_PATH, purchase.getPurchaseDate());
+    }
+
+    // Recomputes the ledger from the full purchase history
+    public static SpendingLedger rebuild(Iterable<Purchase> purchases, long userCount) {
+        SpendingLedger ledger = new SpendingLedger(userCount);
+        for (Purchase purchase : purchases) {
+            ledger.apply(purchaseAdded(purchase));
+            ledger.recordPurchaseDate(purchase.getPurchaseDate());
+        }
+        return ledger;
+    }
+
+    // Loads the stored ledger, spending and members are keyed by userKey
+    public static SpendingLedger fromStored(Map<String, Long> spendingByKey, Set<String> memberKeys, long userCount,
+                                            long totalCents, long purchaseCount, long lastPurchaseDate) {
+        SpendingLedger ledger = new SpendingLedger(userCount);
+        for (Map.Entry<String, Long> entry : spendingByKey.entrySet()) {
+            ledger.addSpending(entry.getKey(), entry.getValue());
+        }
+        ledger.memberKeys.addAll(memberKeys);
+        ledger.totalCents = totalCents;
+        ledger.purchaseCount = purchaseCount;
+        ledger.lastPurchaseDate = lastPurchaseDate;
+        return ledger;
+    }
+
+    public void addMember(String email) {
+        memberKeys.add(userKey(email));
+    }
+
+    public Set<String> getMemberKeys() {
+        return Collections.unmodifiableSet(memberKeys);
+    }
+
+    // Applies deltas produced by the static helpers above
+    public void apply(Map<String, Long> deltas) {
+        String prefix = SPENDING_PATH + "/";
+        for (Map.Entry<String, Long> entry : deltas.entrySet()) {
+            String path = entry.getKey();
+            if (path.startsWith(prefix)) {
+                addSpending(path.substring(prefix.length()), entry.getValue());
+            } else if (path.equals(TOTAL_PATH)) {
+                totalCents += entry.getValue();
+            } else if (path.equals(PURCHASE_COUNT_PATH)) {
+                purchaseCount += entry.getValue();
+            }
+        }
+    }
+
+    public void recordPurchaseDate(long purchaseDate) {
+        lastPurchaseDate = Math.max(lastPurchaseDate, purchaseDate);
+    }
+
+    private void addSpending(String key, long cents) {
+        long updated = spendingCents.getOrDefault(key, 0L) + cents;
+        if (updated == 0) {
+            spendingCents.remove(key);
+        } else {
+            spendingCents.put(key, updated);
+        }
+    }
+
+    public long getSpendingCents(String email) {
+        return spendingCents.getOrDefault(userKey(email), 0L);
+    }
+
+    public Money getSpending(String email) {
+        return Money.ofMinor(getSpendingCents(email));
+    }
+
+    // Spending by email for every member and every purchaser, 0 for members who bought nothing
+    public Map<String, Long> getSpendingByMember() {
+        Map<String, Long> spending = new HashMap<>(memberKeys.size() + spendingCents.size());
+        for (String key : memberKeys) {
+            spending.put(userEmail(key), 0L);
+        }
+        for (Map.Entry<String, Long> entry : spendingCents.entrySet()) {
+            spending.put(userEmail(entry.getKey()), entry.getValue());
+        }
+        return spending;
+    }
+
+    // Spending keyed by userKey, ready to be written back under SPENDING_PATH
+    public Map<String, Long> getSpendingByKey() {
+        return Collections.unmodifiableMap(spendingCents);
+    }
+
+    public long getTotalCents() {
+        return totalCents;
+    }
+
+    public Money getTotal() {
+        return Money.ofMinor(totalCents);
+    }
+
+    public long getPurchaseCount() {
+        return purchaseCount;
+    }
+
+    // 0 when nothing has been bought
+    public long getLastPurchaseDate() {
+        return lastPurchaseDate;
+    }
+
+    public long getUserCount() {
+        return userCount;
+    }
+
+    public void setUserCount(long userCount) {
+        this.userCount = userCount;
+    }
+
+    // Lists every disagreement with another ledger, empty when both match
+    public List<String> diff(SpendingLedger other) {
+        List<String> mismatches = new ArrayList<>();
+        if (userCount != other.userCount) {
+            mismatches.add("userCount: " + userCount + " != " + other.userCount);
+        }
+        if (totalCents != other.totalCents) {
+            mismatches.add("totalCents: " + totalCents + " != " + other.totalCents);
+        }
+        if (purchaseCount != other.purchaseCount) {
+            mismatches.add("purchaseCount: " + purchaseCount + " != " + other.purchaseCount);
+        }
+        // Only a missed checkout makes the date inconsistent, see the class comment
+        if (lastPurchaseDate < other.lastPurchaseDate) {
+            mismatches.add("lastPurchaseDate: " + lastPurchaseDate + " < " + other.lastPurchaseDate);
+        }
+        Set<String> keys = new HashSet<>(spendingCents.keySet());
+        keys.addAll(other.spendingCents.keySet());
+        for (String key : keys) {
+            long mine = spendingCents.getOrDefault(key, 0L);
+            long theirs = other.spendingCents.getOrDefault(key, 0L);
+            if (mine != theirs) {
+                mismatches.add(userEmail(key) + ": " + mine + " != " + theirs);
+            }
+        }
+        return mismatches;
+    }
+}
@@ -0,0 +1,38 @@
+package edu.uga.cs.roommateshopping.services;
+
+import androidx.annotation.NonNull;
+import androidx.lifecycle.DefaultLifecycleObserver;
+import androidx.lifecycle.LifecycleOwner;
+
+// Starts subscriptions when their screen becomes visible and stops them when it is hidden
+public class SubscriptionLifecycle implements DefaultLifecycleObserver {
+    private final SubscriptionManager.Subscription<?>[] subscriptions;
+
+    private SubscriptionLifecycle(SubscriptionManager.Subscription<?>[] subscriptions) {
+        this.subscriptions = subscriptions;
+    }
+
+    // Safe to call after onStart, the lifecycle replays the events already past
+    public static void bind(LifecycleOwner owner, SubscriptionManager.Subscription<?>... subscriptions) {
+        owner.getLifecycle().addObserver(new SubscriptionLifecycle(subscriptions));
+    }
+
+    @Override
+    public void onStart(@NonNull LifecycleOwner owner) {
+        for (SubscriptionManager.Subscription<?> subscription : subscriptions) {
+            subscription.start();
+        }
+    }
+
+    @Override
+    public void onStop(@NonNull LifecycleOwner owner) {
+        for (SubscriptionManager.Subscription<?> subscription : subscriptions) {
+            subscription.stop();
+        }
+    }
+
+    @Override
+    public void onDestroy(@NonNull LifecycleOwner owner) {
+        owner.getLifecycle().removeObserver(this);
+    }
+}
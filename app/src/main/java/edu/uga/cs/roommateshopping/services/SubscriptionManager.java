@@ -0,0 +1,145 @@
+package edu.uga.cs.roommateshopping.services;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Shares live database listeners between the components that want them.
+ *
+ * Each query is identified by a key. The first started subscription for a
+ * key attaches the real listener, later ones for the same key join it and
+ * get the last value straight away, and the listener is removed when the
+ * last one stops. Subscriptions are meant to be started and stopped with
+ * their screen (see SubscriptionLifecycle), so nothing streams while the
+ * app is in the background and a recreated activity never stacks a second
+ * listener on the same query.
+ *
+ * Not thread-safe: use it from the main thread, where Firebase delivers
+ * its callbacks.
+ */
+public class SubscriptionManager {
+    private final Map<String, Entry<?>> entries = new HashMap<>();
+
+    public interface Observer<T> {
+        void onValue(T value);
+
+        void onError(String errorMessage);
+    }
+
+    // Attaches the real listener and reports what it receives to sink
+    public interface Source<T> {
+        Registration attach(Observer<T> sink);
+    }
+
+    public interface Registration {
+        void remove();
+    }
+
+    // Created stopped; the source is only used if no listener for key is attached yet
+    public <T> Subscription<T> subscription(String key, Source<T> source, Observer<T> observer) {
+        return new Subscription<>(key, source, observer);
+    }
+
+    // Real listeners currently attached
+    public int getActiveListenerCount() {
+        return entries.size();
+    }
+
+    // Started subscriptions across all listeners
+    public int getActiveSubscriberCount() {
+        int count = 0;
+        for (Entry<?> entry : entries.values()) {
+            count += entry.observers.size();
+        }
+        return count;
+    }
+
+    public int getSubscriberCount(String key) {
+        Entry<?> entry = entries.get(key);
+        return entry != null ? entry.observers.size() : 0;
+    }
+
+    public class Subscription<T> {
+        private final String key;
+        private final Source<T> source;
+        private final Observer<T> observer;
+        private boolean started;
+
+        private Subscription(String key, Source<T> source, Observer<T> observer) {
+            this.key = key;
+            this.source = source;
+            this.observer = observer;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        public boolean isStarted() {
+            return started;
+        }
+
+        @SuppressWarnings("unchecked")
+        public void start() {
+            if (started) return;
+            started = true;
+
+            Entry<T> entry = (Entry<T>) entries.get(key);
+            if (entry == null) {
+                entry = new Entry<>();
+                entries.put(key, entry);
+                entry.observers.add(observer);
+                entry.registration = source.attach(entry);
+            } else {
+                entry.observers.add(observer);
+                if (entry.hasValue) {
+                    observer.onValue(entry.lastValue);
+                }
+            }
+        }
+
+        public void stop() {
+            if (!started) return;
+            started = false;
+
+            Entry<?> entry = entries.get(key);
+            if (entry == null) return;
+            entry.observers.remove(observer);
+            if (entry.observers.isEmpty()) {
+                entries.remove(key);
+                if (entry.registration != null) {
+                    entry.registration.remove();
+                }
+            }
+        }
+    }
+
+    // One attached listener, fanning out to every started subscription
+    private static class Entry<T> implements Observer<T> {
+        final List<Observer<T>> observers = new ArrayList<>();
+        Registration registration;
+        boolean hasValue;
+        T lastValue;
+
+        @Override
+        public void onValue(T value) {
+            hasValue = true;
+            lastValue = value;
+            // Copy so an observer can stop its subscription from the callback
+            for (Observer<T> observer : new ArrayList<>(observers)) {
+                observer.onValue(value);
+            }
+        }
+
+        @Override
+        public void onError(String errorMessage) {
+            hasValue = false;
+            lastValue = null;
+            for (Observer<T> observer : new ArrayList<>(observers)) {
+                observer.onError(errorMessage);
+            }
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package edu.uga.cs.roommateshopping.services;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Batches field writes to database nodes (e.g. shopping_items/<id>) so that
+ * rapid edits cost one write instead of one per field per edit.
+ *
+ * Fields set within windowMillis of the first pending write are merged per
+ * node, last writer wins per field, and all pending nodes go out together
+ * as a single multi-path update. Callers should flush() when the screen is
+ * paused so nothing waits on a window that may never close. Before deleting
+ * a node, discard() it so a late flush can't recreate it; before moving it,
+ * take() its fields and write them with the moved copy.
+ */
+public class WriteCoalescer {
+    private final ShoppingStorage storage;
+    private final long windowMillis;
+    private final ScheduledExecutorService scheduler;
+    private final boolean ownsScheduler;
+
+    // Node path -> field -> value, in first-written order
+    private final Map<String, Map<String, Object>> pending = new LinkedHashMap<>();
+    private ScheduledFuture<?> scheduledFlush;
+
+    private long requestedCount;  // Field writes handed to set()
+    private long issuedCount;     // Updates actually sent to storage
+    private long failedCount;
+
+    public WriteCoalescer(ShoppingStorage storage, long windowMillis) {
+        this(storage, windowMillis, Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "write-coalescer");
+            thread.setDaemon(true);
+            return thread;
+        }), true);
+    }
+
+    public WriteCoalescer(ShoppingStorage storage, long windowMillis, ScheduledExecutorService scheduler) {
+        this(storage, windowMillis, scheduler, false);
+    }
+
+    private WriteCoalescer(ShoppingStorage storage, long windowMillis,
+                           ScheduledExecutorService scheduler, boolean ownsScheduler) {
+        this.storage = storage;
+        this.windowMillis = windowMillis;
+        this.scheduler = scheduler;
+        this.ownsScheduler = ownsScheduler;
+    }
+
+    // Queues nodePath/field = value; null deletes the field
+    public synchronized void set(String nodePath, String field, Object value) {
+        Map<String, Object> fields = pending.get(nodePath);
+        if (fields == null) {
+            fields = new LinkedHashMap<>();
+            pending.put(nodePath, fields);
+        }
+        fields.put(field, value);
+        requestedCount++;
+
+        if (scheduledFlush == null) {
+            scheduledFlush = scheduler.schedule(this::flush, windowMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    // Drops pending fields for a node that is about to be deleted or moved
+    public synchronized void discard(String nodePath) {
+        pending.remove(nodePath);
+    }
+
+    // Removes and returns a node's pending fields, empty if there are none, so a caller moving
+    // the node can write them with the node's new copy in the same update
+    public synchronized Map<String, Object> take(String nodePath) {
+        Map<String, Object> fields = pending.remove(nodePath);
+        return fields != null ? fields : Collections.emptyMap();
+    }
+
+    // Issues the update before returning, also when the timer's flush is already running, so a
+    // delete or move the caller writes next is always ordered after it
+    public synchronized void flush() {
+        if (scheduledFlush != null) {
+            scheduledFlush.cancel(false);
+            scheduledFlush = null;
+        }
+        if (pending.isEmpty()) return;
+
+        Map<String, Object> updates = new HashMap<>();
+        for (Map.Entry<String, Map<String, Object>> node : pending.entrySet()) {
+            for (Map.Entry<String, Object> field : node.getValue().entrySet()) {
+                updates.put(node.getKey() + "/" + field.getKey(), field.getValue());
+            }
+        }
+        pending.clear();
+        issuedCount++;
+
+        // Storage only queues the write here, it does not wait for the database
+        storage.update(updates, new ShoppingStorage.WriteCallback() {
+            @Override
+            public void onSuccess() {
+            }
+
+            @Override
+            public void onFailure(String errorMessage) {
+                synchronized (WriteCoalescer.this) {
+                    failedCount++;
+                }
+            }
+        });
+    }
+
+    // Flushes what is pending and stops the timer thread if this instance created it
+    public void shutdown() {
+        flush();
+        if (ownsScheduler) {
+            scheduler.shutdown();
+        }
+    }
+
+    public synchronized int getPendingNodeCount() {
+        return pending.size();
+    }
+
+    public synchronized long getRequestedCount() {
+        return requestedCount;
+    }
+
+    public synchronized long getIssuedCount() {
+        return issuedCount;
+    }
+
+    // Field writes that did not need a write of their own
+    public synchronized long getCoalescedCount() {
+        return requestedCount - issuedCount;
+    }
+
+    public synchronized long getFailedCount() {
+        return failedCount;
+    }
+}
@@ -0,0 +1,51 @@
+package edu.uga.cs.roommateshopping.adapters;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class BindStatsTest {
+
+    // Fake counter that advances by a fixed amount per bind
+    private static class StepCounter implements BindStats.AllocationCounter {
+        long value;
+
+        @Override
+        public long count() {
+            return value;
+        }
+    }
+
+    @Test
+    public void reportsTotalsPerFrameAndSkipsIdleFrames() {
+        StepCounter counter = new StepCounter();
+        BindStats stats = new BindStats(counter, 2);
+        List<BindStats.Frame> frames = new ArrayList<>();
+        stats.setReporter(frames::add);
+
+        for (int i = 0; i < 3; i++) {
+            stats.begin();
+            counter.value += 1;
+            stats.end();
+        }
+        stats.endFrame();
+        stats.endFrame();  // Nothing bound, not reported
+        stats.begin();
+        counter.value += 5;
+        stats.end();
+        stats.endFrame();
+
+        assertEquals(2, frames.size());
+        assertEquals(3, frames.get(0).binds);
+        assertEquals(3, frames.get(0).allocations);
+        assertFalse(frames.get(0).overBudget);
+        assertEquals(1, frames.get(1).binds);
+        assertEquals(5, frames.get(1).allocations);
+        assertTrue(frames.get(1).overBudget);
+        assertEquals(4, stats.getTotalBinds());
+        assertEquals(1, stats.getFramesOverBudget());
+    }
+}
@@ -0,0 +1,65 @@
+package edu.uga.cs.roommateshopping.adapters;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import edu.uga.cs.roommateshopping.models.ShoppingItem;
+
+import static org.junit.Assert.*;
+
+public class ItemSelectionTest {
+
+    private static List<ShoppingItem> items(String... ids) {
+        List<ShoppingItem> items = new ArrayList<>();
+        for (String id : ids) {
+            items.add(new ShoppingItem(id, "Item " + id, 1, 1.0, false, "a@uga.edu"));
+        }
+        return items;
+    }
+
+    private static List<String> ids(List<ShoppingItem> items) {
+        List<String> ids = new ArrayList<>();
+        for (ShoppingItem item : items) {
+            ids.add(item.getId());
+        }
+        return ids;
+    }
+
+    @Test
+    public void toggleStartsAndEndsSelectionMode() {
+        ItemSelection selection = new ItemSelection();
+        assertFalse(selection.isActive());
+
+        assertTrue(selection.toggle("a"));
+        assertTrue(selection.isActive());
+        assertTrue(selection.isSelected("a"));
+
+        assertFalse(selection.toggle("a"));
+        assertFalse(selection.isActive());
+    }
+
+    @Test
+    public void selectedItemsFollowListOrderAndDropMissingIds() {
+        ItemSelection selection = new ItemSelection();
+        selection.selectAll(Arrays.asList("d", "b", "gone"));
+
+        assertEquals(Arrays.asList("b", "d"), ids(selection.selectedIn(items("a", "b", "c", "d"))));
+        assertEquals(2, selection.size());
+        assertFalse(selection.isSelected("gone"));
+    }
+
+    @Test
+    public void selectionSurvivesRowsMoving() {
+        ItemSelection selection = new ItemSelection();
+        selection.toggle("c");
+
+        // Rows inserted and removed around the selected item
+        assertEquals(Arrays.asList("c"), ids(selection.selectedIn(items("x", "c", "a"))));
+
+        selection.clear();
+        assertTrue(selection.selectedIn(items("c")).isEmpty());
+    }
+}
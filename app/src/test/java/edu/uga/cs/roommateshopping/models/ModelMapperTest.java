@@ -0,0 +1,87 @@
+package edu.uga.cs.roommateshopping.models;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class ModelMapperTest {
+
+    @Test
+    public void readsItemsInTheShapeSnapshotsHandBack() {
+        // Whole numbers come back as Long, even for an int or double property
+        Map<String, Object> value = new HashMap<>();
+        value.put("id", "stale");
+        value.put("name", "Milk");
+        value.put("quantity", 2L);
+        value.put("price", 3L);
+        value.put("purchased", false);
+        value.put("addedBy", "a@uga.edu");
+
+        ShoppingItem item = ModelMapper.toShoppingItem("-Nx1", value);
+
+        assertEquals("-Nx1", item.getId());
+        assertEquals("Milk", item.getName());
+        assertEquals(2, item.getQuantity());
+        assertEquals(300, item.getPriceCents());
+        assertNull(item.getPurchasedBy());
+    }
+
+    @Test
+    public void itemsRoundTrip() {
+        ShoppingItem item = new ShoppingItem("-Nx1", "Eggs", 12, 0.25, true, "a@uga.edu");
+        item.setPurchasedBy("b@uga.edu");
+        item.setPurchasedDate(1700000000000L);
+
+        ShoppingItem read = ModelMapper.toShoppingItem("-Nx1", ModelMapper.toMap(item));
+
+        assertEquals(ModelMapper.toMap(item), ModelMapper.toMap(read));
+    }
+
+    @Test
+    public void readsPurchaseLinesStoredWithGaps() {
+        Map<String, Object> milk = new HashMap<>();
+        milk.put("id", "i1");
+        milk.put("n", "Milk");
+        milk.put("q", 1L);
+        milk.put("p", 3.49);
+        Map<String, Object> lines = new HashMap<>();
+        lines.put("2", milk);
+        Map<String, Object> value = new HashMap<>();
+        value.put("lines", lines);
+        value.put("totalAmount", 3.49);
+        value.put("purchasedBy", "a@uga.edu");
+        value.put("purchaseDate", 1700000000000L);
+
+        Purchase purchase = ModelMapper.toPurchase("-Np1", value);
+
+        assertEquals("-Np1", purchase.getId());
+        assertEquals(Arrays.asList("i1"), purchase.getItemIds());
+        assertEquals(349, purchase.getLine("i1").getUnitPriceCents());
+        assertEquals(349, purchase.getTotalCents());
+    }
+
+    @Test
+    public void updatesMapModelsAndLeaveOtherValuesAlone() {
+        ShoppingItem item = new ShoppingItem("-Nx1", "Eggs", 12, 0.25, false, "a@uga.edu");
+        PurchaseLine line = new PurchaseLine("-Nx1", "Eggs", 12, Money.parse("0.25"));
+        Map<String, Object> updates = new HashMap<>();
+        updates.put("shopping_items/-Nx1", item);
+        updates.put("purchases/-Np1/lines", Arrays.asList(line));
+        updates.put("purchases/-Np1/totalAmount", 3.0);
+        updates.put("basket/u1", null);
+
+        Map<String, Object> mapped = ModelMapper.toDatabaseUpdates(updates);
+
+        assertEquals(ModelMapper.toMap(item), mapped.get("shopping_items/-Nx1"));
+        List<?> lines = (List<?>) mapped.get("purchases/-Np1/lines");
+        assertEquals(ModelMapper.toMap(line), lines.get(0));
+        assertEquals(3.0, mapped.get("purchases/-Np1/totalAmount"));
+        assertTrue(mapped.containsKey("basket/u1"));
+        assertNull(mapped.get("basket/u1"));
+    }
+}
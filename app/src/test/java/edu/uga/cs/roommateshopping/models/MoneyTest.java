@@ -0,0 +1,61 @@
+package edu.uga.cs.roommateshopping.models;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class MoneyTest {
+
+    @Test
+    public void parseRoundsToCents() {
+        assertEquals(1250, Money.parse("12.5").getMinorUnits());
+        assertEquals(268, Money.parse(" 2.675 ").getMinorUnits());
+        assertEquals("12.50", Money.parse("12.5").toDecimalString());
+        assertEquals("12.50 USD", Money.parse("12.5").toString());
+    }
+
+    @Test
+    public void databaseAmountsRoundTrip() {
+        for (long cents = -5000; cents <= 5000; cents++) {
+            assertEquals(cents, Money.toMinor(Money.toMajor(cents)));
+        }
+    }
+
+    @Test
+    public void repeatedSumsDoNotDrift() {
+        double doubleSum = 0;
+        long centsSum = 0;
+        for (int i = 0; i < 1_000_000; i++) {
+            doubleSum += 0.10;
+            centsSum += Money.toMinor(0.10);
+        }
+        assertEquals(10_000_000, centsSum);
+        assertNotEquals(100_000.0, doubleSum, 0.0);
+    }
+
+    @Test
+    public void splitAddsUpExactly() {
+        long[] shares = Money.split(1000, 3);
+        assertArrayEquals(new long[]{334, 333, 333}, shares);
+        assertEquals(1000, Arrays.stream(shares).sum());
+
+        long[] negative = Money.split(-1000, 3);
+        assertEquals(-1000, Arrays.stream(negative).sum());
+    }
+
+    @Test
+    public void arithmeticChecksCurrency() {
+        Money dollars = Money.ofMinor(500);
+        assertEquals(Money.ofMinor(1535), dollars.times(3).plus(Money.ofMinor(35)));
+        assertEquals(Money.ofMinor(35), Money.ofMinor(500).applyRate(0.07));
+        assertSame(Money.ZERO, dollars.minus(dollars));
+        try {
+            dollars.plus(Money.ofMinor(500, "EUR"));
+            fail("Expected currency mismatch");
+        } catch (IllegalArgumentException expected) {
+            // Expected
+        }
+    }
+}
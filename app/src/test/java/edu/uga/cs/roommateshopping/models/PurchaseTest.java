@@ -0,0 +1,79 @@
+package edu.uga.cs.roommateshopping.models;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class PurchaseTest {
+
+    private static PurchaseLine line(String id, String name, int quantity, String price) {
+        return new PurchaseLine(id, name, quantity, Money.parse(price));
+    }
+
+    @Test
+    public void linesKeepOrderAndAreFoundById() {
+        Purchase purchase = new Purchase(Arrays.asList(
+                line("z", "Zucchini", 2, "1.10"),
+                line("a", "Apples", 6, "0.50"),
+                line("m", "Milk", 1, "3.49")),
+                Money.parse("8.69"), "a@uga.edu");
+
+        assertEquals(Arrays.asList("z", "a", "m"), purchase.getItemIds());
+        assertEquals(Arrays.asList("Zucchini", "Apples", "Milk"), purchase.getItemNames());
+        assertEquals(300, purchase.getLine("a").getLineTotalCents());
+        assertTrue(purchase.containsItem("m"));
+        assertNull(purchase.getLine("x"));
+    }
+
+    @Test
+    public void repeatedItemKeepsFirstPositionAndLastLine() {
+        Purchase purchase = new Purchase(Arrays.asList(
+                line("a", "Apples", 1, "0.50"),
+                line("b", "Bread", 1, "2.00"),
+                line("a", "Apples", 3, "0.50")),
+                Money.parse("3.50"), "a@uga.edu");
+
+        assertEquals(Arrays.asList("a", "b"), purchase.getItemIds());
+        assertEquals(3, purchase.getLines().get(0).getQuantity());
+    }
+
+    @Test
+    public void legacyListsReadInEitherOrder() {
+        Purchase idsFirst = new Purchase();
+        idsFirst.setItemIds(Arrays.asList("i1", "i2"));
+        idsFirst.setItemNames(Arrays.asList("Eggs", "Milk"));
+
+        Purchase namesFirst = new Purchase();
+        namesFirst.setItemNames(Arrays.asList("Eggs", "Milk"));
+        namesFirst.setItemIds(Arrays.asList("i1", "i2"));
+
+        assertEquals(idsFirst.getLines(), namesFirst.getLines());
+        assertEquals("Milk", idsFirst.getLine("i2").getName());
+        assertEquals(0, idsFirst.getLine("i2").getQuantity());
+    }
+
+    @Test
+    public void mapperWritesLinesAndReadsBothShapes() {
+        Purchase purchase = new Purchase(Arrays.asList(line("i1", "Eggs", 12, "0.25")),
+                Money.parse("3.00"), "a@uga.edu");
+        Map<String, Object> stored = ModelMapper.toMap(purchase);
+
+        assertFalse(stored.containsKey("itemIds"));
+        List<?> lines = (List<?>) stored.get("lines");
+        assertEquals(0.25, (double) ((Map<?, ?>) lines.get(0)).get("p"), 0);
+        assertEquals(purchase.getLines(), ModelMapper.toPurchase("p1", stored).getLines());
+
+        Map<String, Object> legacy = new HashMap<>();
+        legacy.put("itemIds", Arrays.asList("i1", "i2"));
+        legacy.put("itemNames", Arrays.asList("Eggs", "Milk"));
+        legacy.put("totalAmount", 5.0);
+        Purchase read = ModelMapper.toPurchase("p2", legacy);
+        assertEquals(Arrays.asList("Eggs", "Milk"), read.getItemNames());
+        assertEquals(500, read.getTotalCents());
+    }
+}
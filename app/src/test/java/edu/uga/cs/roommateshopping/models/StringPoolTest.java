@@ -0,0 +1,132 @@
+package edu.uga.cs.roommateshopping.models;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class StringPoolTest {
+    private static final String[] USERS = {"ann@uga.edu", "bob@uga.edu", "cat@uga.edu", "dan@uga.edu"};
+
+    @Before
+    public void setUp() {
+        ModelMapper.getStringPool().clear();
+    }
+
+    @Test
+    public void equalStringsShareOneInstance() {
+        StringPool pool = new StringPool();
+        String first = pool.intern(new String("Milk"));
+        String second = pool.intern(new String("Milk"));
+
+        assertSame(first, second);
+        assertNull(pool.intern(null));
+        assertEquals(1, pool.size());
+
+        pool.clear();
+        assertEquals(0, pool.size());
+    }
+
+    @Test
+    public void listBasketAndHistoryShareNamesAndEmails() {
+        ShoppingItem listed = ModelMapper.toShoppingItem("i1", itemValue("Milk", "ann@uga.edu"));
+        ShoppingItem inBasket = ModelMapper.toShoppingItem("i2", itemValue("Milk", "bob@uga.edu"));
+        Purchase purchase = ModelMapper.toPurchase("p1", purchaseValue("ann@uga.edu", "i3", "Milk"));
+
+        assertSame(listed.getName(), inBasket.getName());
+        assertSame(listed.getName(), purchase.getLines().get(0).getName());
+        assertSame(listed.getAddedBy(), purchase.getPurchasedBy());
+    }
+
+    @Test
+    public void largeHouseholdKeepsEachDistinctStringOnce() {
+        Random random = new Random(3);
+        List<Object> held = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            String name = "Grocery item " + random.nextInt(300);
+            held.add(ModelMapper.toShoppingItem("i" + i, itemValue(name, USERS[random.nextInt(USERS.length)])));
+        }
+        for (int i = 0; i < 2_000; i++) {
+            String[] line = new String[10];
+            for (int j = 0; j < line.length; j += 2) {
+                line[j] = "p" + i + "-" + j;
+                line[j + 1] = "Grocery item " + random.nextInt(300);
+            }
+            held.add(ModelMapper.toPurchase("p" + i, purchaseValue(USERS[random.nextInt(USERS.length)], line)));
+        }
+
+        // Every parsed value starts as its own instance, which is what models kept before pooling
+        long unpooled = 0;
+        Map<String, Boolean> distinct = new IdentityHashMap<>();
+        for (String value : sharedStrings(held)) {
+            unpooled += bytes(value);
+            distinct.put(value, true);
+        }
+        long pooled = 0;
+        for (String value : distinct.keySet()) {
+            pooled += bytes(value);
+        }
+
+        assertEquals(304, distinct.size());
+        assertTrue("pooled " + pooled + " of " + unpooled + " bytes", pooled * 50 < unpooled);
+    }
+
+    // Names and emails held by the models
+    private static List<String> sharedStrings(List<Object> models) {
+        List<String> values = new ArrayList<>();
+        for (Object model : models) {
+            if (model instanceof ShoppingItem) {
+                values.add(((ShoppingItem) model).getName());
+                values.add(((ShoppingItem) model).getAddedBy());
+            } else {
+                Purchase purchase = (Purchase) model;
+                values.add(purchase.getPurchasedBy());
+                for (PurchaseLine line : purchase.getLines()) {
+                    values.add(line.getName());
+                }
+            }
+        }
+        return values;
+    }
+
+    // Compact strings on a 64-bit JVM with compressed oops: 24-byte String plus a padded byte[]
+    private static long bytes(String value) {
+        return 24 + ((16 + value.length() + 7) / 8) * 8;
+    }
+
+    private static Map<String, Object> itemValue(String name, String addedBy) {
+        Map<String, Object> value = new HashMap<>();
+        value.put("name", new String(name));
+        value.put("quantity", 1L);
+        value.put("price", 2.5);
+        value.put("purchased", false);
+        value.put("addedBy", new String(addedBy));
+        return value;
+    }
+
+    // Alternating item ids and names
+    private static Map<String, Object> purchaseValue(String purchasedBy, String... idsAndNames) {
+        List<Object> lines = new ArrayList<>();
+        for (int i = 0; i < idsAndNames.length; i += 2) {
+            Map<String, Object> line = new HashMap<>();
+            line.put("id", idsAndNames[i]);
+            line.put("n", new String(idsAndNames[i + 1]));
+            line.put("q", 1L);
+            line.put("p", 2.5);
+            lines.add(line);
+        }
+        Map<String, Object> value = new HashMap<>();
+        value.put("lines", lines);
+        value.put("totalAmount", 12.5);
+        value.put("purchasedBy", new String(purchasedBy));
+        value.put("purchaseDate", 1700000000000L);
+        return value;
+    }
+}
@@ -0,0 +1,61 @@
+package edu.uga.cs.roommateshopping.services;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import edu.uga.cs.roommateshopping.models.ShoppingItem;
+
+import static org.junit.Assert.*;
+
+public class BasketRestoreTest {
+
+    private static ShoppingItem item(String id) {
+        return new ShoppingItem(id, "name-" + id, 1, 0.0, false, "a@uga.edu");
+    }
+
+    private static List<String> ids(List<ShoppingItem> items) {
+        List<String> ids = new ArrayList<>();
+        for (ShoppingItem item : items) {
+            ids.add(item.getId());
+        }
+        return ids;
+    }
+
+    @Test
+    public void keepsSavedOrderRegardlessOfSnapshotOrder() {
+        List<ShoppingItem> open = Arrays.asList(item("a"), item("b"), item("c"), item("d"));
+
+        List<ShoppingItem> basket = BasketRestore.resolve(Arrays.asList("d", "a", "c"), open);
+
+        assertEquals(Arrays.asList("d", "a", "c"), ids(basket));
+        assertSame(open.get(3), basket.get(0));
+    }
+
+    @Test
+    public void dropsMissingAndDuplicateIds() {
+        List<ShoppingItem> open = Arrays.asList(item("a"), item("b"));
+
+        List<ShoppingItem> basket = BasketRestore.resolve(Arrays.asList("b", "gone", "b", "a"), open);
+
+        assertEquals(Arrays.asList("b", "a"), ids(basket));
+        assertTrue(BasketRestore.resolve(Collections.singletonList("x"), open).isEmpty());
+    }
+
+    @Test
+    public void largeBasketResolvesInOnePass() {
+        List<ShoppingItem> open = new ArrayList<>();
+        List<String> saved = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            open.add(item("item" + i));
+            saved.add("item" + (9_999 - i));
+        }
+
+        List<ShoppingItem> basket = BasketRestore.resolve(saved, open);
+
+        assertEquals(saved, ids(basket));
+    }
+}
@@ -0,0 +1,143 @@
+package edu.uga.cs.roommateshopping.services;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import edu.uga.cs.roommateshopping.models.Purchase;
+import edu.uga.cs.roommateshopping.models.ShoppingItem;
+
+import static org.junit.Assert.*;
+
+public class CheckoutBatchTest {
+    private static final int BASKET_SIZE = 40;
+
+    private FakeDatabase database;
+
+    // Writes issued before waiting travel together, so each wait costs one round trip
+    private static class FakeDatabase {
+        final Map<String, Object> data = new HashMap<>();
+        final List<Map<String, Object>> inFlight = new ArrayList<>();
+        int writes;
+        int roundTrips;
+
+        void setValue(String path, Object value) {
+            updateChildren(Collections.singletonMap(path, value));
+        }
+
+        void updateChildren(Map<String, Object> updates) {
+            writes++;
+            inFlight.add(updates);
+        }
+
+        // Waits for every write in flight, applying them
+        void await() {
+            if (inFlight.isEmpty()) return;
+            roundTrips++;
+            for (Map<String, Object> updates : inFlight) {
+                // Null deletes, as in the database
+                updates.forEach((path, value) -> {
+                    if (value == null) {
+                        data.remove(path);
+                    } else {
+                        data.put(path, value);
+                    }
+                });
+            }
+            inFlight.clear();
+        }
+    }
+
+    @Before
+    public void setUp() {
+        database = new FakeDatabase();
+    }
+
+    private static List<ShoppingItem> basket() {
+        List<ShoppingItem> items = new ArrayList<>();
+        for (int i = 0; i < BASKET_SIZE; i++) {
+            items.add(new ShoppingItem("item" + i, "name" + i, 1, 1.5, false, "a@uga.edu"));
+        }
+        return items;
+    }
+
+    private static Purchase purchaseOf(List<ShoppingItem> items) {
+        List<String> ids = new ArrayList<>();
+        List<String> names = new ArrayList<>();
+        for (ShoppingItem item : items) {
+            ids.add(item.getId());
+            names.add(item.getName());
+        }
+        return new Purchase(ids, names, 60.0, "b@uga.edu");
+    }
+
+    // The previous checkout: one setValue per item, wait for all, then push the purchase
+    private void legacyCheckout(List<ShoppingItem> items, Purchase purchase) {
+        for (ShoppingItem item : items) {
+            item.setPurchased(true);
+            item.setPurchasedBy(purchase.getPurchasedBy());
+            item.setPurchasedDate(purchase.getPurchaseDate());
+            database.setValue("shopping_items/" + item.getId(), item);
+        }
+        database.await();
+        database.setValue("purchases/legacy", purchase);
+        database.await();
+    }
+
+    private void batchedCheckout(List<ShoppingItem> items, Purchase purchase) {
+        database.updateChildren(CheckoutBatch.build(items, "b-uid", "batched", purchase));
+        database.await();
+    }
+
+    @Test
+    public void buildArchivesEveryItemAndAddsPurchase() {
+        List<ShoppingItem> items = basket();
+        Purchase purchase = purchaseOf(items);
+
+        Map<String, Object> updates = CheckoutBatch.build(items, "b-uid", "p1", purchase);
+
+        assertEquals(BASKET_SIZE * 3 + 1, updates.size());
+        assertSame(purchase, updates.get("purchases/p1"));
+        assertTrue(updates.containsKey("shopping_items/item7"));
+        assertNull(updates.get("shopping_items/item7"));
+        // Checked-out items leave the basket with the same write
+        assertTrue(updates.containsKey("baskets/b-uid/item7"));
+        assertNull(updates.get("baskets/b-uid/item7"));
+        Map<?, ?> archived = (Map<?, ?>) updates.get("archived_items/item7");
+        assertEquals("name7", archived.get("name"));
+        assertEquals(true, archived.get("purchased"));
+        assertEquals("b@uga.edu", archived.get("purchasedBy"));
+        assertEquals(purchase.getPurchaseDate(), archived.get("purchasedDate"));
+        // The basket items themselves are not touched until the write lands
+        assertFalse(items.get(7).isPurchased());
+    }
+
+    @Test
+    public void batchedCheckoutIsOneWriteAndOneRoundTrip() {
+        List<ShoppingItem> items = basket();
+        Purchase purchase = purchaseOf(items);
+
+        legacyCheckout(basket(), purchase);
+        assertEquals(BASKET_SIZE + 1, database.writes);
+        assertEquals(2, database.roundTrips);
+
+        database = new FakeDatabase();
+        for (ShoppingItem item : items) {
+            database.data.put("baskets/b-uid/" + item.getId(), item);
+        }
+        batchedCheckout(items, purchase);
+        assertEquals(1, database.writes);
+        assertEquals(1, database.roundTrips);
+
+        // Only the archived copies and the purchase are left
+        assertEquals(BASKET_SIZE + 1, database.data.size());
+        assertNull(database.data.get("baskets/b-uid/item0"));
+        assertNotNull(database.data.get("archived_items/item0"));
+        assertSame(purchase, database.data.get("purchases/batched"));
+    }
+}
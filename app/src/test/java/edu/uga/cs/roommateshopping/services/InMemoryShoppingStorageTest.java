@@ -0,0 +1,159 @@
+package edu.uga.cs.roommateshopping.services;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import edu.uga.cs.roommateshopping.models.Purchase;
+import edu.uga.cs.roommateshopping.models.ShoppingItem;
+
+import static org.junit.Assert.*;
+
+public class InMemoryShoppingStorageTest {
+    private InMemoryShoppingStorage storage;
+
+    @Before
+    public void setUp() {
+        storage = new InMemoryShoppingStorage();
+    }
+
+    @After
+    public void tearDown() {
+        storage.shutdown();
+    }
+
+    private String update(Map<String, Object> updates) throws Exception {
+        CompletableFuture<String> result = new CompletableFuture<>();
+        storage.update(updates, new ShoppingStorage.WriteCallback() {
+            @Override
+            public void onSuccess() {
+                result.complete(null);
+            }
+
+            @Override
+            public void onFailure(String errorMessage) {
+                result.complete(errorMessage);
+            }
+        });
+        return result.get(1, TimeUnit.SECONDS);
+    }
+
+    private <T> T read(java.util.function.Consumer<ShoppingStorage.Callback<T>> reader) throws Exception {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        reader.accept(new ShoppingStorage.Callback<T>() {
+            @Override
+            public void onSuccess(T value) {
+                result.complete(value);
+            }
+
+            @Override
+            public void onFailure(String errorMessage) {
+                result.completeExceptionally(new AssertionError(errorMessage));
+            }
+        });
+        return result.get(1, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void modelsRoundTripAndAcceptPartialWrites() throws Exception {
+        ShoppingItem milk = new ShoppingItem("i1", "Milk", 2, 3.49, false, "a@uga.edu");
+        assertNull(update(Collections.singletonMap(ShoppingStorage.itemPath("i1"), milk)));
+
+        Map<String, Object> partial = new HashMap<>();
+        partial.put(ShoppingStorage.itemPath("i1") + "/purchased", true);
+        partial.put(ShoppingStorage.itemPath("i1") + "/purchasedBy", "b@uga.edu");
+        assertNull(update(partial));
+
+        List<ShoppingItem> items = read(cb -> storage.getItems(ShoppingStorage.ITEMS_PATH, cb));
+        assertEquals(1, items.size());
+        ShoppingItem stored = items.get(0);
+        assertEquals("i1", stored.getId());
+        assertEquals("Milk", stored.getName());
+        assertEquals(2, stored.getQuantity());
+        assertEquals(349, stored.getPriceCents());
+        assertTrue(stored.isPurchased());
+        assertEquals("b@uga.edu", stored.getPurchasedBy());
+        // The caller's object is not shared with the store
+        assertFalse(milk.isPurchased());
+
+        Purchase purchase = new Purchase(Arrays.asList("i1"), Arrays.asList("Milk"), 6.98, "b@uga.edu");
+        assertNull(update(Collections.singletonMap(ShoppingStorage.purchasePath("p1"), purchase)));
+        List<Purchase> purchases = read(storage::getPurchases);
+        assertEquals(698, purchases.get(0).getTotalCents());
+        assertEquals(Arrays.asList("Milk"), purchases.get(0).getItemNames());
+        assertEquals(purchase.getPurchaseDate(), purchases.get(0).getPurchaseDate());
+    }
+
+    @Test
+    public void deletesPruneEmptyParentsAndIncrementsAdd() throws Exception {
+        String basket = ShoppingStorage.basketPath("u1");
+        assertNull(update(Collections.singletonMap(basket + "/i1", new ShoppingItem("i1", "Eggs", 1, 2.0, false, "a"))));
+        assertNotNull(storage.get("baskets/u1"));
+
+        assertNull(update(Collections.singletonMap(basket + "/i1", null)));
+        assertNull(storage.get("baskets"));
+
+        Map<String, Object> increment = Collections.singletonMap(".sv", Collections.singletonMap("increment", 150L));
+        assertNull(update(Collections.singletonMap("ledger/spending/a", increment)));
+        assertNull(update(Collections.singletonMap("ledger/spending/a", increment)));
+        assertEquals(300L, storage.get("ledger/spending/a"));
+    }
+
+    @Test
+    public void rejectsOverlappingPathsWithoutApplyingAny() throws Exception {
+        Map<String, Object> updates = new HashMap<>();
+        updates.put("shopping_items/i1", new ShoppingItem("i1", "Eggs", 1, 2.0, false, "a"));
+        updates.put("shopping_items/i1-b", new ShoppingItem("i1-b", "Ham", 1, 2.0, false, "a"));
+        updates.put("shopping_items/i1/name", "Duck eggs");
+
+        assertNotNull(update(updates));
+        assertNull(storage.get(ShoppingStorage.ITEMS_PATH));
+    }
+
+    @Test
+    public void readersNeverSeeHalfAnUpdate() throws Exception {
+        InMemoryShoppingStorage slow = new InMemoryShoppingStorage(1, 8);
+        try {
+            List<CompletableFuture<Boolean>> checks = new ArrayList<>();
+            for (int round = 0; round < 200; round++) {
+                Map<String, Object> pair = new HashMap<>();
+                pair.put("shopping_items/a" + round, new ShoppingItem("a" + round, "a", 1, 1.0, false, "x"));
+                pair.put("shopping_items/b" + round, new ShoppingItem("b" + round, "b", 1, 1.0, false, "x"));
+                slow.update(pair, new ShoppingStorage.WriteCallback() {
+                    @Override
+                    public void onSuccess() {}
+
+                    @Override
+                    public void onFailure(String errorMessage) {}
+                });
+                CompletableFuture<Boolean> check = new CompletableFuture<>();
+                slow.getItems(ShoppingStorage.ITEMS_PATH, new ShoppingStorage.Callback<List<ShoppingItem>>() {
+                    @Override
+                    public void onSuccess(List<ShoppingItem> items) {
+                        check.complete(items.size() % 2 == 0);
+                    }
+
+                    @Override
+                    public void onFailure(String errorMessage) {
+                        check.complete(false);
+                    }
+                });
+                checks.add(check);
+            }
+            for (CompletableFuture<Boolean> check : checks) {
+                assertTrue(check.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            slow.shutdown();
+        }
+    }
+}
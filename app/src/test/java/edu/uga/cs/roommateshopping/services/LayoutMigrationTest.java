@@ -0,0 +1,137 @@
+package edu.uga.cs.roommateshopping.services;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import edu.uga.cs.roommateshopping.models.ModelMapper;
+import edu.uga.cs.roommateshopping.models.ShoppingItem;
+
+import static org.junit.Assert.*;
+
+public class LayoutMigrationTest {
+    private InMemoryShoppingStorage storage;
+
+    @Before
+    public void setUp() {
+        storage = new InMemoryShoppingStorage();
+    }
+
+    @After
+    public void tearDown() {
+        storage.shutdown();
+    }
+
+    private void update(Map<String, Object> updates) throws Exception {
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        storage.update(updates, new ShoppingStorage.WriteCallback() {
+            @Override
+            public void onSuccess() {
+                done.complete(null);
+            }
+
+            @Override
+            public void onFailure(String errorMessage) {
+                done.completeExceptionally(new AssertionError(errorMessage));
+            }
+        });
+        done.get(1, TimeUnit.SECONDS);
+    }
+
+    private List<ShoppingItem> items(String path) throws Exception {
+        CompletableFuture<List<ShoppingItem>> result = new CompletableFuture<>();
+        storage.getItems(path, new ShoppingStorage.Callback<List<ShoppingItem>>() {
+            @Override
+            public void onSuccess(List<ShoppingItem> items) {
+                result.complete(items);
+            }
+
+            @Override
+            public void onFailure(String errorMessage) {
+                result.completeExceptionally(new AssertionError(errorMessage));
+            }
+        });
+        return result.get(1, TimeUnit.SECONDS);
+    }
+
+    // Old layout: every third item flagged purchased in place
+    private void seedOldLayout(int count) throws Exception {
+        Map<String, Object> updates = new HashMap<>();
+        for (int i = 0; i < count; i++) {
+            ShoppingItem item = new ShoppingItem(String.format("i%04d", i), "Item " + i, 1, 1.0, i % 3 == 0, "a@uga.edu");
+            updates.put(ShoppingStorage.itemPath(item.getId()), item);
+        }
+        update(updates);
+    }
+
+    @Test
+    public void movesPurchasedItemsInBoundedBatches() throws Exception {
+        seedOldLayout(1200);
+
+        List<Map<String, Object>> batches = LayoutMigration.plan((Map<?, ?>) storage.get(ShoppingStorage.ITEMS_PATH));
+        for (Map<String, Object> batch : batches) {
+            assertTrue(batch.size() <= LayoutMigration.MAX_PATHS_PER_BATCH);
+            for (String path : batch.keySet()) {
+                if (path.startsWith(ShoppingStorage.ARCHIVED_ITEMS_PATH + "/")) {
+                    // The removal from shopping_items travels with the archived copy
+                    String itemId = path.substring(path.indexOf('/') + 1);
+                    assertTrue(batch.containsKey(ShoppingStorage.itemPath(itemId)));
+                }
+            }
+            update(batch);
+        }
+
+        assertEquals(2, batches.size());
+        assertEquals(LayoutMigration.SCHEMA_VERSION, batches.get(1).get(LayoutMigration.SCHEMA_VERSION_PATH));
+        List<ShoppingItem> open = items(ShoppingStorage.ITEMS_PATH);
+        List<ShoppingItem> archived = items(ShoppingStorage.ARCHIVED_ITEMS_PATH);
+        assertEquals(800, open.size());
+        assertEquals(400, archived.size());
+        for (ShoppingItem item : open) {
+            assertFalse(item.isPurchased());
+        }
+        assertEquals("Item 3", archived.get(1).getName());
+    }
+
+    @Test
+    public void planningAgainOnlyRecordsTheVersion() throws Exception {
+        seedOldLayout(30);
+        for (Map<String, Object> batch : LayoutMigration.plan((Map<?, ?>) storage.get(ShoppingStorage.ITEMS_PATH))) {
+            update(batch);
+        }
+
+        List<Map<String, Object>> again = LayoutMigration.plan((Map<?, ?>) storage.get(ShoppingStorage.ITEMS_PATH));
+
+        assertEquals(1, again.size());
+        assertEquals(1, again.get(0).size());
+        assertFalse(LayoutMigration.isNeeded((Long) storage.get(LayoutMigration.SCHEMA_VERSION_PATH)));
+        assertTrue(LayoutMigration.isNeeded(null));
+        assertTrue(LayoutMigration.isNeeded(1L));
+    }
+
+    @Test
+    public void basketMoveMergesIntoTheNewBasket() throws Exception {
+        ShoppingItem kept = new ShoppingItem("i1", "Eggs", 1, 2.0, false, "a@uga.edu");
+        ShoppingItem moved = new ShoppingItem("i2", "Milk", 1, 3.0, false, "a@uga.edu");
+        Map<String, Object> seed = new HashMap<>();
+        seed.put(ShoppingStorage.basketPath("u1") + "/i1", kept);
+        seed.put(LayoutMigration.legacyBasketPath("u1") + "/i2", moved);
+        seed.put("users/u1/email", "a@uga.edu");
+        update(seed);
+
+        Map<?, ?> legacy = (Map<?, ?>) storage.get(LayoutMigration.legacyBasketPath("u1"));
+        update(LayoutMigration.planBasketMove("u1", legacy));
+
+        assertEquals(2, items(ShoppingStorage.basketPath("u1")).size());
+        assertEquals(ModelMapper.toMap(moved).get("name"), ((Map<?, ?>) storage.get("baskets/u1/i2")).get("name"));
+        assertNull(storage.get(LayoutMigration.legacyBasketPath("u1")));
+        assertEquals("a@uga.edu", storage.get("users/u1/email"));
+        assertTrue(LayoutMigration.planBasketMove("u1", null).isEmpty());
+    }
+}
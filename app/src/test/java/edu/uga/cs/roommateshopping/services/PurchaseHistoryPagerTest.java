@@ -0,0 +1,175 @@
+package edu.uga.cs.roommateshopping.services;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import edu.uga.cs.roommateshopping.models.Purchase;
+
+import static org.junit.Assert.*;
+
+public class PurchaseHistoryPagerTest {
+    private static final int PAGE_SIZE = 10;
+    private static final int MAX_PAGES = 3;
+
+    // Purchases in orderByChild("purchaseDate") order, oldest first
+    private List<Purchase> history;
+    private PurchaseHistoryPager pager;
+
+    private static Purchase purchase(int n, long date) {
+        Purchase purchase = new Purchase(new ArrayList<>(), new ArrayList<>(), 1.0, "a@uga.edu");
+        purchase.setId(String.format("p%04d", n));
+        purchase.setPurchaseDate(date);
+        return purchase;
+    }
+
+    @Before
+    public void setUp() {
+        history = new ArrayList<>();
+        for (int i = 0; i < 95; i++) {
+            // Pairs share a date so the key tiebreak matters
+            history.add(purchase(i, 1000 + i / 2));
+        }
+        pager = new PurchaseHistoryPager(PAGE_SIZE, MAX_PAGES);
+    }
+
+    // limitToLast(n)
+    private List<Purchase> newest(int n) {
+        return new ArrayList<>(history.subList(Math.max(0, history.size() - n), history.size()));
+    }
+
+    // endAt(cursor).limitToLast(n)
+    private List<Purchase> before(Purchase cursor, int n) {
+        int end = 0;
+        while (end < history.size() && PurchaseHistoryPager.compare(history.get(end), cursor) <= 0) end++;
+        return new ArrayList<>(history.subList(Math.max(0, end - n), end));
+    }
+
+    // startAt(cursor).limitToFirst(n)
+    private List<Purchase> after(Purchase cursor, int n) {
+        int start = 0;
+        while (start < history.size() && PurchaseHistoryPager.compare(history.get(start), cursor) < 0) start++;
+        return new ArrayList<>(history.subList(start, Math.min(history.size(), start + n)));
+    }
+
+    private void loadOlder() {
+        pager.onOlderPage(before(pager.olderCursor(), pager.getCursorQuerySize()));
+    }
+
+    private void loadNewer() {
+        pager.onNewerPage(after(pager.newerCursor(), pager.getCursorQuerySize()));
+    }
+
+    private static void assertNewestFirstWithoutDuplicates(List<Purchase> window) {
+        Set<String> ids = new HashSet<>();
+        for (int i = 0; i < window.size(); i++) {
+            assertTrue("duplicate " + window.get(i).getId(), ids.add(window.get(i).getId()));
+            if (i > 0) {
+                assertTrue(PurchaseHistoryPager.compare(window.get(i - 1), window.get(i)) > 0);
+            }
+        }
+    }
+
+    @Test
+    public void livePageShowsNewestFirst() {
+        pager.onLivePage(newest(PAGE_SIZE));
+
+        List<Purchase> window = pager.getWindow();
+        assertEquals(PAGE_SIZE, window.size());
+        assertEquals("p0094", window.get(0).getId());
+        assertEquals("p0085", window.get(PAGE_SIZE - 1).getId());
+        assertTrue(pager.isAtNewest());
+        assertTrue(pager.canLoadOlder());
+        assertFalse(pager.canLoadNewer());
+    }
+
+    @Test
+    public void scrollingToTheEndStaysBoundedAndStops() {
+        pager.onLivePage(newest(PAGE_SIZE));
+
+        int loads = 0;
+        while (pager.canLoadOlder()) {
+            loadOlder();
+            loads++;
+            assertTrue(pager.getWindow().size() <= PAGE_SIZE * MAX_PAGES);
+            assertNewestFirstWithoutDuplicates(pager.getWindow());
+        }
+
+        // 95 purchases, 10 per page: 1 live page + 9 older pages reach the first purchase
+        assertEquals(9, loads);
+        List<Purchase> window = pager.getWindow();
+        assertEquals("p0000", window.get(window.size() - 1).getId());
+        assertFalse(pager.isAtNewest());
+        assertTrue(pager.canLoadNewer());
+    }
+
+    @Test
+    public void scrollingBackUpRefetchesEvictedPagesAndRejoinsLivePage() {
+        pager.onLivePage(newest(PAGE_SIZE));
+        while (pager.canLoadOlder()) {
+            loadOlder();
+        }
+
+        while (pager.canLoadNewer()) {
+            loadNewer();
+            assertTrue(pager.getWindow().size() <= PAGE_SIZE * MAX_PAGES);
+            assertNewestFirstWithoutDuplicates(pager.getWindow());
+        }
+
+        assertTrue(pager.isAtNewest());
+        assertEquals("p0094", pager.getWindow().get(0).getId());
+        assertTrue(pager.canLoadOlder());
+    }
+
+    @Test
+    public void newPurchaseOnLivePageIsPrependedOnlyWhenAtNewest() {
+        pager.onLivePage(newest(PAGE_SIZE));
+        loadOlder();
+        assertEquals(2 * PAGE_SIZE, pager.getWindow().size());
+
+        history.add(purchase(95, 2000));
+        pager.onLivePage(newest(PAGE_SIZE));
+
+        List<Purchase> window = pager.getWindow();
+        assertEquals(2 * PAGE_SIZE + 1, window.size());
+        assertEquals("p0095", window.get(0).getId());
+        assertNewestFirstWithoutDuplicates(window);
+
+        // Scrolled away from the top: live updates wait until the user comes back
+        loadOlder();
+        loadOlder();
+        assertFalse(pager.isAtNewest());
+        String top = pager.getWindow().get(0).getId();
+        history.add(purchase(96, 2001));
+        pager.onLivePage(newest(PAGE_SIZE));
+        assertEquals(top, pager.getWindow().get(0).getId());
+    }
+
+    @Test
+    public void removedPurchaseDropsOutOfLivePage() {
+        pager.onLivePage(newest(PAGE_SIZE));
+        loadOlder();
+
+        history.remove(history.size() - 1);
+        pager.onLivePage(newest(PAGE_SIZE));
+
+        List<Purchase> window = pager.getWindow();
+        assertEquals(2 * PAGE_SIZE - 1, window.size());
+        assertEquals("p0093", window.get(0).getId());
+        assertNewestFirstWithoutDuplicates(window);
+    }
+
+    @Test
+    public void shortHistoryNeedsNoMorePages() {
+        history.subList(5, history.size()).clear();
+        pager.onLivePage(newest(PAGE_SIZE));
+
+        assertEquals(5, pager.getWindow().size());
+        assertFalse(pager.canLoadOlder());
+        assertFalse(pager.canLoadNewer());
+    }
+}
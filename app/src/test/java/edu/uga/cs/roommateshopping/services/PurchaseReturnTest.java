@@ -0,0 +1,185 @@
+package edu.uga.cs.roommateshopping.services;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import edu.uga.cs.roommateshopping.models.Money;
+import edu.uga.cs.roommateshopping.models.Purchase;
+import edu.uga.cs.roommateshopping.models.PurchaseLine;
+import edu.uga.cs.roommateshopping.models.ShoppingItem;
+
+import static org.junit.Assert.*;
+
+public class PurchaseReturnTest {
+
+    private static Purchase purchase(int items) {
+        List<String> ids = new ArrayList<>();
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < items; i++) {
+            ids.add("i" + i);
+            names.add("Item " + i);
+        }
+        Purchase purchase = new Purchase(ids, names, 100.0, "a@uga.edu");
+        purchase.setId("p1");
+        return purchase;
+    }
+
+    @Test
+    public void partialReturnKeepsTheRestInOrder() {
+        Purchase purchase = purchase(100);
+        List<String> returned = new ArrayList<>();
+        for (int i = 0; i < 100; i += 5) {
+            returned.add("i" + i);
+        }
+
+        PurchaseReturn itemReturn = PurchaseReturn.build(purchase, returned);
+        Map<String, Object> updates = itemReturn.getUpdates();
+
+        assertEquals(20, itemReturn.getReturnedCount());
+        assertFalse(itemReturn.removesPurchase());
+        // Four fields and the archived copy per returned item, no quantity or price on these lines,
+        // plus the purchase
+        assertEquals(20 * 5 + 3, updates.size());
+        assertEquals(false, updates.get("shopping_items/i5/purchased"));
+        assertEquals("Item 5", updates.get("shopping_items/i5/name"));
+        assertTrue(updates.containsKey("shopping_items/i5/purchasedDate"));
+        assertNull(updates.get("shopping_items/i5/purchasedDate"));
+        assertFalse(updates.containsKey("shopping_items/i1/purchased"));
+        assertTrue(updates.containsKey("archived_items/i5"));
+        assertNull(updates.get("archived_items/i5"));
+
+        List<PurchaseLine> remaining = itemReturn.getRemainingLines();
+        assertEquals(80, remaining.size());
+        assertEquals("i6", remaining.get(4).getItemId());
+        assertEquals("Item 99", remaining.get(79).getName());
+        assertEquals(remaining, updates.get("purchases/p1/lines"));
+        // Lines replace the lists the purchase may have been stored with
+        assertTrue(updates.containsKey("purchases/p1/itemIds"));
+    }
+
+    @Test
+    public void returnedItemGetsItsQuantityAndPriceBack() {
+        Purchase purchase = new Purchase(Arrays.asList(
+                new PurchaseLine("i1", "Eggs", 12, Money.parse("0.25")),
+                new PurchaseLine("i2", "Milk", 1, Money.parse("3.49"))),
+                Money.parse("6.49"), "a@uga.edu");
+        purchase.setId("p1");
+
+        Map<String, Object> updates = PurchaseReturn.build(purchase, Collections.singletonList("i1")).getUpdates();
+
+        assertEquals(12, updates.get("shopping_items/i1/quantity"));
+        assertEquals(0.25, (double) updates.get("shopping_items/i1/price"), 0);
+        assertEquals(Collections.singletonList(purchase.getLine("i2")), updates.get("purchases/p1/lines"));
+    }
+
+    @Test
+    public void returnedItemComesBackFromItsArchivedCopy() throws Exception {
+        InMemoryShoppingStorage storage = new InMemoryShoppingStorage();
+        try {
+            ShoppingItem eggs = new ShoppingItem("i1", "Eggs", 12, 0.25, false, "b@uga.edu");
+            ShoppingItem milk = new ShoppingItem("i2", "Milk", 1, 3.49, false, "c@uga.edu");
+            Purchase purchase = new Purchase(Arrays.asList(PurchaseLine.of(eggs), PurchaseLine.of(milk)),
+                    Money.parse("6.49"), "a@uga.edu");
+            purchase.setId("p1");
+            apply(storage, CheckoutBatch.build(Arrays.asList(eggs, milk), "u1", "p1", purchase));
+
+            // What the history screen reads before returning, milk's copy has gone missing
+            apply(storage, Collections.singletonMap(ShoppingStorage.archivedItemPath("i2"), null));
+            Map<String, ShoppingItem> archived = new HashMap<>();
+            for (ShoppingItem item : archivedItems(storage)) {
+                archived.put(item.getId(), item);
+            }
+            apply(storage, PurchaseReturn.build(purchase, Arrays.asList("i1", "i2"), archived).getUpdates());
+
+            Map<?, ?> returned = (Map<?, ?>) storage.get("shopping_items/i1");
+            assertEquals("b@uga.edu", returned.get("addedBy"));
+            assertEquals("Eggs", returned.get("name"));
+            assertEquals(12L, returned.get("quantity"));
+            assertEquals(false, returned.get("purchased"));
+            assertNull(returned.get("purchasedBy"));
+            assertNull(returned.get("purchasedDate"));
+            assertNull(storage.get("archived_items/i1"));
+            // Without an archived copy the line is all there is
+            assertEquals("Milk", ((Map<?, ?>) storage.get("shopping_items/i2")).get("name"));
+            assertNull(((Map<?, ?>) storage.get("shopping_items/i2")).get("addedBy"));
+        } finally {
+            storage.shutdown();
+        }
+    }
+
+    private static void apply(InMemoryShoppingStorage storage, Map<String, Object> updates) throws Exception {
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        storage.update(updates, new ShoppingStorage.WriteCallback() {
+            @Override
+            public void onSuccess() {
+                done.complete(null);
+            }
+
+            @Override
+            public void onFailure(String errorMessage) {
+                done.completeExceptionally(new AssertionError(errorMessage));
+            }
+        });
+        done.get(1, TimeUnit.SECONDS);
+    }
+
+    private static List<ShoppingItem> archivedItems(InMemoryShoppingStorage storage) throws Exception {
+        CompletableFuture<List<ShoppingItem>> result = new CompletableFuture<>();
+        storage.getItems(ShoppingStorage.ARCHIVED_ITEMS_PATH, new ShoppingStorage.Callback<List<ShoppingItem>>() {
+            @Override
+            public void onSuccess(List<ShoppingItem> items) {
+                result.complete(items);
+            }
+
+            @Override
+            public void onFailure(String errorMessage) {
+                result.completeExceptionally(new AssertionError(errorMessage));
+            }
+        });
+        return result.get(1, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void returningEverythingRemovesThePurchase() {
+        Purchase purchase = purchase(3);
+        PurchaseReturn itemReturn = PurchaseReturn.build(purchase, Arrays.asList("i2", "i0", "i1"));
+
+        assertTrue(itemReturn.removesPurchase());
+        assertTrue(itemReturn.getUpdates().containsKey("purchases/p1"));
+        assertNull(itemReturn.getUpdates().get("purchases/p1"));
+        assertFalse(itemReturn.getUpdates().containsKey("purchases/p1/itemIds"));
+    }
+
+    @Test
+    public void unknownIdsChangeNothing() {
+        PurchaseReturn itemReturn = PurchaseReturn.build(purchase(3), Collections.singletonList("other"));
+
+        assertEquals(0, itemReturn.getReturnedCount());
+        assertTrue(itemReturn.getUpdates().isEmpty());
+        assertFalse(itemReturn.removesPurchase());
+    }
+
+    @Test
+    public void updatesApplyAsOneWrite() throws Exception {
+        InMemoryShoppingStorage storage = new InMemoryShoppingStorage();
+        try {
+            Purchase purchase = purchase(10);
+            PurchaseReturn itemReturn = PurchaseReturn.build(purchase, Arrays.asList("i3", "i7"));
+            apply(storage, itemReturn.getUpdates());
+
+            assertEquals(1, storage.getWriteCount());
+            assertEquals("Item 3", ((Map<?, ?>) storage.get("shopping_items/i3")).get("name"));
+            assertEquals(8, ((List<?>) storage.get("purchases/p1/lines")).size());
+        } finally {
+            storage.shutdown();
+        }
+    }
+}
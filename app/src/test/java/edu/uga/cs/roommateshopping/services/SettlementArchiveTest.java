@@ -0,0 +1,163 @@
+package edu.uga.cs.roommateshopping.services;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import edu.uga.cs.roommateshopping.models.Money;
+import edu.uga.cs.roommateshopping.models.ModelMapper;
+import edu.uga.cs.roommateshopping.models.Purchase;
+import edu.uga.cs.roommateshopping.models.PurchaseLine;
+import edu.uga.cs.roommateshopping.models.ShoppingItem;
+
+import static org.junit.Assert.*;
+
+public class SettlementArchiveTest {
+    private static final String[] USERS = {"a@uga.edu", "b@uga.edu", "c@uga.edu"};
+
+    private InMemoryShoppingStorage storage;
+
+    @Before
+    public void setUp() {
+        storage = new InMemoryShoppingStorage();
+    }
+
+    @After
+    public void tearDown() {
+        storage.shutdown();
+    }
+
+    private void checkout(int i) throws Exception {
+        String user = USERS[i % USERS.length];
+        List<ShoppingItem> basket = new ArrayList<>();
+        for (int j = 0; j <= i % 3; j++) {
+            basket.add(new ShoppingItem("i" + i + "-" + j, "Item", 1 + j, 1.25, false, user));
+        }
+        CompletableFuture<String> done = new CompletableFuture<>();
+        new ShoppingBasketServices(storage, "uid-" + i, user).checkoutBasket(basket, 0.0, new ShoppingBasketServices.DatabaseCallback() {
+            @Override
+            public void onSuccess(String message) {
+                done.complete(message);
+            }
+
+            @Override
+            public void onFailure(String errorMessage) {
+                done.completeExceptionally(new AssertionError(errorMessage));
+            }
+        });
+        done.get(1, TimeUnit.SECONDS);
+    }
+
+    private List<Purchase> purchases() throws Exception {
+        CompletableFuture<List<Purchase>> result = new CompletableFuture<>();
+        storage.getPurchases(new ShoppingStorage.Callback<List<Purchase>>() {
+            @Override
+            public void onSuccess(List<Purchase> purchases) {
+                result.complete(purchases);
+            }
+
+            @Override
+            public void onFailure(String errorMessage) {
+                result.completeExceptionally(new AssertionError(errorMessage));
+            }
+        });
+        return result.get(1, TimeUnit.SECONDS);
+    }
+
+    private void write(Map<String, Object> updates) throws Exception {
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        storage.update(updates, new ShoppingStorage.WriteCallback() {
+            @Override
+            public void onSuccess() {
+                done.complete(null);
+            }
+
+            @Override
+            public void onFailure(String errorMessage) {
+                done.completeExceptionally(new AssertionError(errorMessage));
+            }
+        });
+        done.get(1, TimeUnit.SECONDS);
+    }
+
+    private long number(String path) {
+        Object value = storage.get(path);
+        return value instanceof Number ? ((Number) value).longValue() : 0;
+    }
+
+    @Test
+    public void settlementArchivesInBatchesAndKeepsLaterPurchasesLive() throws Exception {
+        for (int i = 0; i < 250; i++) {
+            checkout(i);
+        }
+        List<Purchase> settled = purchases();
+        long settledCents = 0;
+        long settledItems = 0;
+        Map<String, Long> spending = new HashMap<>();
+        for (Purchase purchase : settled) {
+            settledCents += purchase.getTotalCents();
+            settledItems += SettlementArchive.itemCount(purchase);
+            spending.merge(SpendingLedger.userKey(purchase.getPurchasedBy()), purchase.getTotalCents(), Long::sum);
+        }
+
+        List<Map<String, Object>> batches = SettlementArchive.plan("s1", settled, 1_000L);
+        // Bought while the settlement was running
+        checkout(250);
+        for (Map<String, Object> batch : batches) {
+            long moved = batch.keySet().stream().filter(path -> path.startsWith(SettlementArchive.ARCHIVE_PATH)).count();
+            assertTrue(moved <= SettlementArchive.MAX_PURCHASES_PER_BATCH);
+            write(batch);
+        }
+
+        assertEquals(3, batches.size());
+        List<Purchase> live = purchases();
+        assertEquals(1, live.size());
+        assertEquals(live.get(0).getTotalCents(), number(SpendingLedger.TOTAL_PATH));
+        assertEquals(1, number(SpendingLedger.PURCHASE_COUNT_PATH));
+
+        assertEquals(settledCents, number("settlements/s1/totalCents"));
+        assertEquals(250, number("settlements/s1/purchaseCount"));
+        assertEquals(settledItems, number("settlements/s1/itemCount"));
+        for (Map.Entry<String, Long> user : spending.entrySet()) {
+            assertEquals((long) user.getValue(), number("settlements/s1/spending/" + user.getKey()));
+        }
+        assertEquals(1_000L, number("settlements/s1/settledAt"));
+        assertTrue(number("settlements/s1/from") <= number("settlements/s1/to"));
+
+        Map<?, ?> archive = (Map<?, ?>) storage.get(SettlementArchive.ARCHIVE_PATH + "/s1");
+        assertEquals(250, archive.size());
+        Purchase first = settled.get(0);
+        Purchase archived = ModelMapper.toPurchase(first.getId(), (Map<?, ?>) archive.get(first.getId()));
+        assertEquals(first.getTotalCents(), archived.getTotalCents());
+        assertEquals(first.getLines(), archived.getLines());
+    }
+
+    @Test
+    public void batchesRunOldestFirst() {
+        List<Purchase> purchases = new ArrayList<>();
+        for (int i = 0; i < 150; i++) {
+            Purchase purchase = new Purchase(Arrays.asList(new PurchaseLine("i" + i, "Item", 2, Money.parse("1.00"))),
+                    Money.parse("2.00"), USERS[0]);
+            purchase.setId("p" + i);
+            purchase.setPurchaseDate(10_000 - i);
+            purchases.add(purchase);
+        }
+
+        List<Map<String, Object>> batches = SettlementArchive.plan("s1", purchases, 1L);
+
+        assertEquals(9_851L, batches.get(0).get("settlements/s1/from"));
+        assertEquals(9_950L, batches.get(0).get("settlements/s1/to"));
+        assertEquals(10_000L, batches.get(1).get("settlements/s1/to"));
+        assertFalse(batches.get(1).containsKey("settlements/s1/from"));
+        assertTrue(batches.get(0).containsKey("purchase_archive/s1/p149"));
+        assertTrue(SettlementArchive.plan("s2", new ArrayList<>(), 1L).isEmpty());
+    }
+}
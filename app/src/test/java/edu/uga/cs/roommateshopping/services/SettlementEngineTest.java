@@ -0,0 +1,128 @@
+package edu.uga.cs.roommateshopping.services;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import edu.uga.cs.roommateshopping.models.Purchase;
+
+import static org.junit.Assert.*;
+
+public class SettlementEngineTest {
+
+    // Applies the transfers and checks everyone ends up within one cent of the others
+    private static void assertSettled(Map<String, Long> spending, List<SettlementEngine.Transfer> transfers) {
+        Map<String, Long> paid = new HashMap<>(spending);
+        for (SettlementEngine.Transfer transfer : transfers) {
+            assertTrue(transfer.getCents() > 0);
+            paid.merge(transfer.getFrom(), transfer.getCents(), Long::sum);
+            paid.merge(transfer.getTo(), -transfer.getCents(), Long::sum);
+        }
+        long min = Long.MAX_VALUE;
+        long max = Long.MIN_VALUE;
+        long total = 0;
+        for (long cents : paid.values()) {
+            min = Math.min(min, cents);
+            max = Math.max(max, cents);
+            total += cents;
+        }
+        long expectedTotal = 0;
+        for (long cents : spending.values()) {
+            expectedTotal += cents;
+        }
+        assertEquals(expectedTotal, total);
+        assertTrue(max - min <= 1);
+        assertTrue(transfers.size() <= spending.size() - 1);
+    }
+
+    @Test
+    public void twoMembersSplitEvenly() {
+        Map<String, Long> spending = new HashMap<>();
+        spending.put("a@uga.edu", 3000L);
+        spending.put("b@uga.edu", 1000L);
+
+        List<SettlementEngine.Transfer> transfers = SettlementEngine.settle(spending);
+
+        assertEquals(1, transfers.size());
+        assertEquals("b@uga.edu", transfers.get(0).getFrom());
+        assertEquals("a@uga.edu", transfers.get(0).getTo());
+        assertEquals(1000L, transfers.get(0).getCents());
+    }
+
+    @Test
+    public void leftoverCentsAreSplitExactly() {
+        Map<String, Long> spending = new HashMap<>();
+        spending.put("a@uga.edu", 100L);
+        spending.put("b@uga.edu", 0L);
+        spending.put("c@uga.edu", 0L);
+
+        List<SettlementEngine.Transfer> transfers = SettlementEngine.settle(spending);
+
+        // 100 cents over three people: shares of 34, 33, 33
+        long received = 0;
+        for (SettlementEngine.Transfer transfer : transfers) {
+            assertEquals("a@uga.edu", transfer.getTo());
+            received += transfer.getCents();
+        }
+        assertEquals(66L, received);
+        assertSettled(spending, transfers);
+    }
+
+    @Test
+    public void sharesAgreeWithTransfers() {
+        Map<String, Long> spending = new HashMap<>();
+        spending.put("a@uga.edu", 1001L);
+        spending.put("b@uga.edu", 0L);
+        spending.put("c@uga.edu", 250L);
+
+        Map<String, Long> shares = SettlementEngine.shares(spending);
+        Map<String, Long> net = new HashMap<>();
+        for (SettlementEngine.Transfer transfer : SettlementEngine.settle(spending)) {
+            net.merge(transfer.getTo(), transfer.getCents(), Long::sum);
+            net.merge(transfer.getFrom(), -transfer.getCents(), Long::sum);
+        }
+
+        // What each member is owed (or owes) is exactly what the transfers move
+        for (String member : spending.keySet()) {
+            assertEquals(member, spending.get(member) - shares.get(member), (long) net.getOrDefault(member, 0L));
+        }
+        assertTrue(SettlementEngine.shares(new HashMap<>()).isEmpty());
+    }
+
+    @Test
+    public void alreadyEvenNeedsNoTransfers() {
+        Map<String, Long> spending = new HashMap<>();
+        spending.put("a@uga.edu", 500L);
+        spending.put("b@uga.edu", 500L);
+
+        assertTrue(SettlementEngine.settle(spending).isEmpty());
+        assertTrue(SettlementEngine.settle(new HashMap<>()).isEmpty());
+    }
+
+    // Timings for this size are in the benchmarks module's SettlementBenchmark
+    @Test
+    public void largeHouseholdSettlesExactly() {
+        int users = 5_000;
+        int purchases = 50_000;
+        Random random = new Random(7);
+
+        List<Purchase> history = new ArrayList<>(purchases);
+        for (int i = 0; i < purchases; i++) {
+            history.add(new Purchase(null, null, random.nextInt(20_000) / 100.0, "user" + random.nextInt(users) + "@uga.edu"));
+        }
+
+        SpendingLedger ledger = SpendingLedger.rebuild(history, users);
+        for (int i = 0; i < users; i++) {
+            ledger.addMember("user" + i + "@uga.edu");
+        }
+        Map<String, Long> spending = ledger.getSpendingByMember();
+        List<SettlementEngine.Transfer> transfers = SettlementEngine.settle(spending);
+
+        assertEquals(users, spending.size());
+        assertSettled(spending, transfers);
+    }
+}
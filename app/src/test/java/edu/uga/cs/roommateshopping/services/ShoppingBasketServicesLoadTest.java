@@ -0,0 +1,161 @@
+package edu.uga.cs.roommateshopping.services;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import edu.uga.cs.roommateshopping.models.Money;
+import edu.uga.cs.roommateshopping.models.Purchase;
+import edu.uga.cs.roommateshopping.models.ShoppingItem;
+
+import static org.junit.Assert.*;
+
+// Drives the basket flow for many users at once against the in-memory store
+public class ShoppingBasketServicesLoadTest {
+    private static final long LATENCY_MS = 2;
+    private static final int USERS = 50;
+    private static final int ITEMS_PER_USER = 20;
+
+    private InMemoryShoppingStorage storage;
+    private final Queue<String> errors = new ConcurrentLinkedQueue<>();
+
+    @Before
+    public void setUp() throws Exception {
+        storage = new InMemoryShoppingStorage(LATENCY_MS, 16);
+        CountDownLatch seeded = new CountDownLatch(1);
+        Map<String, Object> items = new HashMap<>();
+        for (int user = 0; user < USERS; user++) {
+            for (int i = 0; i < ITEMS_PER_USER; i++) {
+                String id = itemId(user, i);
+                items.put(ShoppingStorage.itemPath(id), new ShoppingItem(id, "item " + i, 1, 1.25, false, "u" + user));
+            }
+        }
+        storage.update(items, writeCallback(seeded));
+        assertTrue(seeded.await(5, TimeUnit.SECONDS));
+        storage.resetCounts();
+    }
+
+    @After
+    public void tearDown() {
+        storage.shutdown();
+    }
+
+    private static String itemId(int user, int i) {
+        return String.format("u%03d-i%03d", user, i);
+    }
+
+    private ShoppingStorage.WriteCallback writeCallback(CountDownLatch done) {
+        return new ShoppingStorage.WriteCallback() {
+            @Override
+            public void onSuccess() {
+                done.countDown();
+            }
+
+            @Override
+            public void onFailure(String errorMessage) {
+                errors.add(errorMessage);
+                done.countDown();
+            }
+        };
+    }
+
+    // Moves the user's items to the basket one after another, then checks out
+    private void shop(ShoppingBasketServices service, int user, int next, CountDownLatch done) {
+        if (next == ITEMS_PER_USER) {
+            service.getBasketItems(new ShoppingBasketServices.FetchBasketCallback() {
+                @Override
+                public void onSuccess(List<ShoppingItem> basketItems) {
+                    // The total the user enters at checkout, as MainActivity passes it
+                    service.checkoutBasket(basketItems, Money.ofMinor(ITEMS_PER_USER * 125L), new ShoppingBasketServices.DatabaseCallback() {
+                        @Override
+                        public void onSuccess(String message) {
+                            done.countDown();
+                        }
+
+                        @Override
+                        public void onFailure(String errorMessage) {
+                            errors.add(errorMessage);
+                            done.countDown();
+                        }
+                    });
+                }
+
+                @Override
+                public void onFailure(String errorMessage) {
+                    errors.add(errorMessage);
+                    done.countDown();
+                }
+            });
+            return;
+        }
+        String id = itemId(user, next);
+        ShoppingItem item = new ShoppingItem(id, "item " + next, 1, 1.25, false, "u" + user);
+        service.moveItemToBasket(id, item, new ShoppingBasketServices.DatabaseCallback() {
+            @Override
+            public void onSuccess(String message) {
+                shop(service, user, next + 1, done);
+            }
+
+            @Override
+            public void onFailure(String errorMessage) {
+                errors.add(errorMessage);
+                done.countDown();
+            }
+        });
+    }
+
+    @Test
+    public void concurrentUsersEachCheckOutTheirWholeBasket() throws Exception {
+        CountDownLatch done = new CountDownLatch(USERS);
+        for (int user = 0; user < USERS; user++) {
+            shop(new ShoppingBasketServices(storage, "u" + user, "u" + user + "@uga.edu"), user, 0, done);
+        }
+        assertTrue(done.await(60, TimeUnit.SECONDS));
+
+        assertTrue(errors.toString(), errors.isEmpty());
+        // One write per move and per checkout, one basket read per user
+        assertEquals(USERS * ITEMS_PER_USER + USERS, storage.getWriteCount());
+        assertEquals(USERS, storage.getReadCount());
+        assertNull(storage.get(ShoppingStorage.ITEMS_PATH));
+        assertNull(storage.get("users"));
+        assertNull(storage.get(ShoppingStorage.BASKETS_PATH));
+
+        List<Purchase> purchases = readPurchases();
+        assertEquals(USERS, purchases.size());
+        for (Purchase purchase : purchases) {
+            assertEquals(ITEMS_PER_USER, purchase.getItemIds().size());
+            assertEquals(ITEMS_PER_USER * 125L, purchase.getTotalCents());
+            // Every user checked out exactly their own items
+            String purchasedBy = purchase.getPurchasedBy();
+            String prefix = String.format("u%03d-", Integer.parseInt(purchasedBy.substring(1, purchasedBy.indexOf('@'))));
+            for (String itemId : purchase.getItemIds()) {
+                assertTrue(itemId, itemId.startsWith(prefix));
+            }
+        }
+    }
+
+    private List<Purchase> readPurchases() throws Exception {
+        CompletableFuture<List<Purchase>> result = new CompletableFuture<>();
+        storage.getPurchases(new ShoppingStorage.Callback<List<Purchase>>() {
+            @Override
+            public void onSuccess(List<Purchase> purchases) {
+                result.complete(purchases);
+            }
+
+            @Override
+            public void onFailure(String errorMessage) {
+                result.completeExceptionally(new AssertionError(errorMessage));
+            }
+        });
+        return result.get(5, TimeUnit.SECONDS);
+    }
+}
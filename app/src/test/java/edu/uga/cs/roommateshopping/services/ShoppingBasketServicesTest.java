@@ -0,0 +1,181 @@
+package edu.uga.cs.roommateshopping.services;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import edu.uga.cs.roommateshopping.models.ShoppingItem;
+
+import static org.junit.Assert.*;
+
+public class ShoppingBasketServicesTest {
+    private static final String USER = "u1";
+    private static final String EMAIL = "a@uga.edu";
+
+    private InMemoryShoppingStorage storage;
+    private ShoppingBasketServices service;
+    private ShoppingItem eggs;
+
+    @Before
+    public void setUp() throws Exception {
+        storage = new InMemoryShoppingStorage(1, 4);
+        service = new ShoppingBasketServices(storage, USER, EMAIL);
+        eggs = new ShoppingItem("i1", "Eggs", 12, 0.25, false, "a@uga.edu");
+
+        CompletableFuture<Void> seeded = new CompletableFuture<>();
+        storage.update(Collections.singletonMap(ShoppingStorage.itemPath("i1"), eggs), new ShoppingStorage.WriteCallback() {
+            @Override
+            public void onSuccess() {
+                seeded.complete(null);
+            }
+
+            @Override
+            public void onFailure(String errorMessage) {
+                seeded.completeExceptionally(new AssertionError(errorMessage));
+            }
+        });
+        seeded.get(1, TimeUnit.SECONDS);
+        storage.resetCounts();
+    }
+
+    @After
+    public void tearDown() {
+        storage.shutdown();
+    }
+
+    private String run(java.util.function.Consumer<ShoppingBasketServices.DatabaseCallback> move) throws Exception {
+        CompletableFuture<String> result = new CompletableFuture<>();
+        move.accept(new ShoppingBasketServices.DatabaseCallback() {
+            @Override
+            public void onSuccess(String message) {
+                result.complete(message);
+            }
+
+            @Override
+            public void onFailure(String errorMessage) {
+                result.completeExceptionally(new AssertionError(errorMessage));
+            }
+        });
+        return result.get(1, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void eachMoveIsOneWriteWithoutReads() throws Exception {
+        assertEquals("Item moved to basket", run(cb -> service.moveItemToBasket("i1", eggs, cb)));
+        assertEquals(0, storage.getReadCount());
+        assertEquals(1, storage.getWriteCount());
+        assertNull(storage.get(ShoppingStorage.itemPath("i1")));
+        assertNotNull(storage.get(ShoppingStorage.basketPath(USER) + "/i1"));
+
+        assertEquals("Item moved to shopping list", run(cb -> service.moveItemToShoppingList("i1", eggs, cb)));
+        assertEquals(0, storage.getReadCount());
+        assertEquals(2, storage.getWriteCount());
+        assertNotNull(storage.get(ShoppingStorage.itemPath("i1")));
+        assertNull(storage.get("users"));
+    }
+
+    @Test
+    public void bulkMoveIsOneWriteEachWay() throws Exception {
+        List<ShoppingItem> items = new ArrayList<>();
+        Map<String, Object> seed = new HashMap<>();
+        for (int i = 2; i <= 20; i++) {
+            ShoppingItem item = new ShoppingItem("i" + i, "Item " + i, 1, 1.0, false, "a@uga.edu");
+            items.add(item);
+            seed.put(ShoppingStorage.itemPath(item.getId()), item);
+        }
+        run(cb -> storage.update(seed, new ShoppingStorage.WriteCallback() {
+            @Override
+            public void onSuccess() {
+                cb.onSuccess("seeded");
+            }
+
+            @Override
+            public void onFailure(String errorMessage) {
+                cb.onFailure(errorMessage);
+            }
+        }));
+        items.add(eggs);
+        storage.resetCounts();
+
+        assertEquals("20 items moved to basket", run(cb -> service.moveItemsToBasket(items, cb)));
+        assertEquals(1, storage.getWriteCount());
+        assertEquals(0, storage.getReadCount());
+        assertNull(storage.get(ShoppingStorage.ITEMS_PATH));
+        assertEquals(20, ((Map<?, ?>) storage.get(ShoppingStorage.basketPath(USER))).size());
+
+        assertEquals("20 items moved to shopping list", run(cb -> service.moveItemsToShoppingList(items, cb)));
+        assertEquals(2, storage.getWriteCount());
+        assertEquals(20, ((Map<?, ?>) storage.get(ShoppingStorage.ITEMS_PATH)).size());
+        assertNull(storage.get("users"));
+    }
+
+    @Test
+    public void itemIsAlwaysInExactlyOnePlace() throws Exception {
+        AtomicBoolean moving = new AtomicBoolean(true);
+        AtomicInteger snapshots = new AtomicInteger();
+        CompletableFuture<String> observer = CompletableFuture.supplyAsync(() -> {
+            while (moving.get()) {
+                // Both places are checked in one consistent copy of the whole tree
+                Map<?, ?> root = (Map<?, ?>) storage.get("");
+                boolean inList = at(root, "shopping_items", "i1") != null;
+                boolean inBasket = at(root, "baskets", USER, "i1") != null;
+                if (inList == inBasket) {
+                    return "list=" + inList + " basket=" + inBasket;
+                }
+                snapshots.incrementAndGet();
+            }
+            return null;
+        });
+
+        for (int i = 0; i < 50; i++) {
+            run(cb -> service.moveItemToBasket("i1", eggs, cb));
+            run(cb -> service.moveItemToShoppingList("i1", eggs, cb));
+        }
+        moving.set(false);
+
+        assertNull(observer.get(1, TimeUnit.SECONDS));
+        assertTrue(snapshots.get() > 0);
+    }
+
+    @Test
+    public void checkoutCreditsTheUsersEmail() throws Exception {
+        run(cb -> service.moveItemToBasket("i1", eggs, cb));
+        assertEquals("Checkout successful!", run(cb -> service.checkoutBasket(Collections.singletonList(eggs), 0.0, cb)));
+
+        assertNotNull(storage.get(SpendingLedger.spendingPath(EMAIL)));
+        assertNull(storage.get(SpendingLedger.spendingPath(USER)));
+        assertNull(storage.get(ShoppingStorage.basketPath(USER)));
+    }
+
+    @Test
+    public void checkoutWithoutEmailWritesNothing() throws Exception {
+        ShoppingBasketServices noEmail = new ShoppingBasketServices(storage, USER, null);
+        try {
+            run(cb -> noEmail.checkoutBasket(Collections.singletonList(eggs), 0.0, cb));
+            fail("Expected the checkout to be refused");
+        } catch (ExecutionException expected) {
+            assertTrue(expected.getCause().getMessage().contains("email"));
+        }
+        assertEquals(0, storage.getWriteCount());
+    }
+
+    private static Object at(Map<?, ?> root, String... path) {
+        Object node = root;
+        for (String segment : path) {
+            if (!(node instanceof Map)) return null;
+            node = ((Map<?, ?>) node).get(segment);
+        }
+        return node;
+    }
+}
@@ -0,0 +1,106 @@
+package edu.uga.cs.roommateshopping.services;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+
+import edu.uga.cs.roommateshopping.models.ShoppingItem;
+
+import static org.junit.Assert.*;
+
+public class ShoppingListIndexTest {
+
+    private static ShoppingItem item(String id, String name) {
+        return new ShoppingItem(id, name, 1, 0, false, "a@uga.edu");
+    }
+
+    private static List<String> ids(List<ShoppingItem> items) {
+        List<String> ids = new ArrayList<>();
+        for (ShoppingItem item : items) {
+            ids.add(item.getId());
+        }
+        return ids;
+    }
+
+    @Test
+    public void matchesEveryQueryWordAsAPrefix() {
+        ShoppingListIndex index = new ShoppingListIndex();
+        index.put(item("1", "Whole milk"));
+        index.put(item("2", "Oat milk"));
+        index.put(item("3", "Whole-wheat bread"));
+
+        assertEquals(new HashSet<>(Arrays.asList("1", "2")), index.search("mil"));
+        assertEquals(new HashSet<>(Arrays.asList("1", "3")), index.search("WHOLE"));
+        assertEquals(new HashSet<>(Arrays.asList("1")), index.search("whole mi"));
+        assertEquals(new HashSet<>(Arrays.asList("3")), index.search("bread, whe"));
+        assertTrue(index.search("whole oat").isEmpty());
+        assertTrue(index.search("  ").isEmpty());
+        assertTrue(index.search("eggs").isEmpty());
+    }
+
+    @Test
+    public void renameAndRemoveUpdateTheIndex() {
+        ShoppingListIndex index = new ShoppingListIndex();
+        index.put(item("1", "Apples"));
+        index.put(item("1", "Bananas"));
+
+        assertTrue(index.search("app").isEmpty());
+        assertEquals(new HashSet<>(Arrays.asList("1")), index.search("ban"));
+        assertEquals(1, index.size());
+
+        index.remove("1");
+        assertTrue(index.search("ban").isEmpty());
+        assertEquals(0, index.size());
+    }
+
+    @Test
+    public void syncSearchFollowsLiveChangesInListOrder() {
+        ShoppingListSync sync = new ShoppingListSync();
+        sync.applyAdded(item("c", "Cheddar cheese"), null);
+        sync.applyAdded(item("a", "Cream cheese"), "c");
+        sync.applyAdded(item("b", "Crackers"), null);
+
+        assertEquals(Arrays.asList("b", "c", "a"), ids(sync.search("c")));
+        assertEquals(Arrays.asList("c", "a"), ids(sync.search("chee")));
+
+        sync.applyChanged(item("b", "Cheese crackers"), null);
+        assertEquals(Arrays.asList("b", "c", "a"), ids(sync.search("chee")));
+
+        sync.applyRemovedAll(Arrays.asList("c"));
+        sync.applyRemoved("b");
+        assertEquals(Arrays.asList("a"), ids(sync.search("chee")));
+
+        sync.appendAll(Arrays.asList(item("d", "Goat cheese")));
+        assertEquals(Arrays.asList("a", "d"), ids(sync.search("chee")));
+
+        sync.clear();
+        assertTrue(sync.search("chee").isEmpty());
+    }
+
+    // Timings for this size are in the benchmarks module's ShoppingListSyncBenchmark
+    @Test
+    public void searchOverTenThousandItemsMatchesAScan() {
+        String[] names = {"milk", "bread", "eggs", "apples", "coffee", "rice", "pasta", "cheese"};
+        ShoppingListSync sync = new ShoppingListSync();
+        List<ShoppingItem> items = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            items.add(item("item" + i, names[i % names.length] + " " + i));
+        }
+        sync.appendAll(items);
+
+        // Each name is "<word> <number>", so these queries match exactly the names they start
+        for (String query : new String[]{"c", "co", "coffee", "coffee 1", "coffee 12", "coffee 9999"}) {
+            List<ShoppingItem> expected = new ArrayList<>();
+            for (ShoppingItem item : items) {
+                if (item.getName().startsWith(query)) {
+                    expected.add(item);
+                }
+            }
+            assertEquals(query, ids(expected), ids(sync.search(query)));
+        }
+        assertEquals(2 * 10_000 / names.length, sync.search("c").size());
+    }
+}
@@ -0,0 +1,206 @@
+package edu.uga.cs.roommateshopping.services;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import edu.uga.cs.roommateshopping.models.ShoppingItem;
+
+import static org.junit.Assert.*;
+
+public class ShoppingListSyncTest {
+    private ShoppingListSync sync;
+    private List<String> events;
+    private ShoppingListSync.Listener listener;
+
+    @Before
+    public void setUp() {
+        sync = new ShoppingListSync();
+        events = new ArrayList<>();
+        listener = new ShoppingListSync.Listener() {
+            @Override
+            public void onItemInserted(int position) {
+                events.add("insert " + position);
+            }
+
+            @Override
+            public void onItemChanged(int position) {
+                events.add("change " + position);
+            }
+
+            @Override
+            public void onItemRemoved(int position) {
+                events.add("remove " + position);
+            }
+
+            @Override
+            public void onItemMoved(int fromPosition, int toPosition) {
+                events.add("move " + fromPosition + "->" + toPosition);
+            }
+
+            @Override
+            public void onItemRangeInserted(int positionStart, int itemCount) {
+                events.add("insert " + positionStart + "+" + itemCount);
+            }
+
+            @Override
+            public void onItemRangeRemoved(int positionStart, int itemCount) {
+                events.add("remove " + positionStart + "+" + itemCount);
+            }
+        };
+        sync.setListener(listener);
+    }
+
+    private static ShoppingItem item(String id, String name) {
+        return new ShoppingItem(id, name, 1, 0, false, "a@uga.edu");
+    }
+
+    private String ids() {
+        StringBuilder sb = new StringBuilder();
+        for (ShoppingItem item : sync.getItems()) {
+            sb.append(item.getId());
+        }
+        return sb.toString();
+    }
+
+    @Test
+    public void addedChildrenFollowPreviousKey() {
+        sync.applyAdded(item("a", "milk"), null);
+        sync.applyAdded(item("c", "eggs"), "a");
+        sync.applyAdded(item("b", "bread"), "a");
+
+        assertEquals("abc", ids());
+        assertEquals(1, sync.indexOf("b"));
+        assertEquals(2, sync.indexOf("c"));
+        assertEquals("[insert 0, insert 1, insert 1]", events.toString());
+    }
+
+    @Test
+    public void removeListenerOnlyDetachesItsOwnListener() {
+        sync.removeListener(null);
+        sync.applyAdded(item("a", "milk"), null);
+        assertEquals("[insert 0]", events.toString());
+
+        sync.removeListener(listener);
+        sync.applyAdded(item("b", "bread"), "a");
+        assertEquals("[insert 0]", events.toString());
+    }
+
+    @Test
+    public void changeOnlyNotifiesTheChangedRow() {
+        sync.applyAdded(item("a", "milk"), null);
+        sync.applyAdded(item("b", "bread"), "a");
+        events.clear();
+
+        sync.applyChanged(item("b", "rye bread"), "a");
+
+        assertEquals("rye bread", sync.get(1).getName());
+        assertEquals("[change 1]", events.toString());
+    }
+
+    @Test
+    public void removeReindexesFollowingItems() {
+        sync.applyAdded(item("a", "milk"), null);
+        sync.applyAdded(item("b", "bread"), "a");
+        sync.applyAdded(item("c", "eggs"), "b");
+        events.clear();
+
+        sync.applyRemoved("a");
+        sync.applyRemoved("missing");
+
+        assertEquals("bc", ids());
+        assertEquals(0, sync.indexOf("b"));
+        assertEquals(-1, sync.indexOf("a"));
+        assertEquals("[remove 0]", events.toString());
+    }
+
+    @Test
+    public void moveRepositionsItem() {
+        sync.applyAdded(item("a", "milk"), null);
+        sync.applyAdded(item("b", "bread"), "a");
+        sync.applyAdded(item("c", "eggs"), "b");
+        events.clear();
+
+        sync.applyMoved("a", "c");
+
+        assertEquals("bca", ids());
+        assertEquals(2, sync.indexOf("a"));
+        assertEquals("[move 0->2]", events.toString());
+    }
+
+    @Test
+    public void replayedAddIsTreatedAsChange() {
+        sync.applyAdded(item("a", "milk"), null);
+        events.clear();
+
+        sync.applyAdded(item("a", "oat milk"), null);
+
+        assertEquals(1, sync.size());
+        assertEquals("oat milk", sync.findById("a").getName());
+        assertEquals("[change 0]", events.toString());
+    }
+
+    @Test
+    public void locallyHiddenItemCanBeAppendedBack() {
+        sync.applyAdded(item("a", "milk"), null);
+        sync.applyAdded(item("b", "bread"), "a");
+        ShoppingItem milk = sync.findById("a");
+
+        sync.applyRemoved("a");
+        // A sibling added after the hidden item falls back to the end
+        sync.applyAdded(item("c", "eggs"), "a");
+        sync.append(milk);
+
+        assertEquals("bca", ids());
+    }
+
+    @Test
+    public void clearRemovesEverything() {
+        sync.applyAdded(item("a", "milk"), null);
+        sync.applyAdded(item("b", "bread"), "a");
+        events.clear();
+
+        sync.clear();
+
+        assertEquals(0, sync.size());
+        assertNull(sync.findById("a"));
+        assertEquals("[remove 1, remove 0]", events.toString());
+    }
+
+    @Test
+    public void bulkRemovalReportsEachRunOnceFromTheEnd() {
+        for (String id : new String[]{"a", "b", "c", "d", "e", "f", "g"}) {
+            sync.append(item(id, id));
+        }
+        events.clear();
+
+        sync.applyRemovedAll(Arrays.asList("b", "c", "f", "x", "g"));
+
+        assertEquals("ade", ids());
+        assertEquals(Arrays.asList("remove 5+2", "remove 1+2"), events);
+        assertEquals(1, sync.indexOf("d"));
+        assertEquals(2, sync.indexOf("e"));
+        assertEquals(-1, sync.indexOf("f"));
+
+        // Child removed events arriving afterwards for the same ids are no-ops
+        events.clear();
+        sync.applyRemoved("b");
+        assertTrue(events.isEmpty());
+    }
+
+    @Test
+    public void bulkAppendIsOneRange() {
+        sync.append(item("a", "milk"));
+        events.clear();
+
+        sync.appendAll(Arrays.asList(item("b", "bread"), item("a", "oat milk"), item("c", "eggs")));
+
+        assertEquals("abc", ids());
+        assertEquals("oat milk", sync.findById("a").getName());
+        assertEquals(Arrays.asList("change 0", "insert 1+2"), events);
+        assertEquals(2, sync.indexOf("c"));
+    }
+}
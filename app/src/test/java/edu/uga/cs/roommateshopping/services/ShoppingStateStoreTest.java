@@ -0,0 +1,98 @@
+package edu.uga.cs.roommateshopping.services;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import edu.uga.cs.roommateshopping.models.Purchase;
+import edu.uga.cs.roommateshopping.models.ShoppingItem;
+
+import static org.junit.Assert.*;
+
+public class ShoppingStateStoreTest {
+
+    private static ShoppingItem item(String id, String name) {
+        return new ShoppingItem(id, name, 1, 0, false, "a@uga.edu");
+    }
+
+    @Test
+    public void basketKeepsOrderAndRemovesById() {
+        ShoppingStateStore state = new ShoppingStateStore();
+        state.addToBasket(Arrays.asList(item("a", "milk"), item("b", "eggs")));
+        state.addToBasket(Collections.singletonList(item("c", "bread")));
+
+        // A copy read back from the database still matches
+        state.removeFromBasket(Collections.singletonList(item("b", "eggs")));
+
+        assertEquals(Arrays.asList("a", "c"), state.getBasketIds());
+        assertEquals(2, state.getBasket().size());
+    }
+
+    @Test
+    public void tickingASearchHitMovesThatItem() {
+        ShoppingStateStore state = new ShoppingStateStore();
+        ShoppingListSync openItems = state.getOpenItems();
+        openItems.appendAll(Arrays.asList(item("a", "milk"), item("b", "eggs"), item("c", "oat milk")));
+
+        // The first row on screen while filtered is not the first item of the list
+        List<ShoppingItem> shown = openItems.search("oat");
+        state.moveToBasket(shown.get(0));
+
+        assertEquals(Collections.singletonList("c"), state.getBasketIds());
+        assertNull(openItems.findById("c"));
+        assertNotNull(openItems.findById("a"));
+        assertTrue(openItems.search("oat").isEmpty());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void basketViewIsReadOnly() {
+        new ShoppingStateStore().getBasket().add(item("a", "milk"));
+    }
+
+    @Test
+    public void basketSurvivesAcrossScreens() {
+        ShoppingStateStore state = new ShoppingStateStore();
+        List<ShoppingItem> firstScreen = state.getBasket();
+        state.addToBasket(Collections.singletonList(item("a", "milk")));
+
+        // A recreated screen picks up the same basket without reading it again
+        List<ShoppingItem> secondScreen = state.getBasket();
+        assertEquals(1, secondScreen.size());
+        assertEquals(firstScreen, secondScreen);
+    }
+
+    @Test
+    public void recentPurchasesAreCopied() {
+        ShoppingStateStore state = new ShoppingStateStore();
+        assertNull(state.getRecentPurchases());
+
+        List<Purchase> page = new ArrayList<>();
+        page.add(new Purchase(Arrays.asList("i1"), Arrays.asList("milk"), 3.5, "a@uga.edu"));
+        state.setRecentPurchases(page);
+        page.clear();
+
+        assertEquals(1, state.getRecentPurchases().size());
+    }
+
+    @Test
+    public void settlementDropsPurchasesButKeepsItems() {
+        ShoppingStateStore state = new ShoppingStateStore();
+        state.getOpenItems().append(item("a", "milk"));
+        state.addToBasket(Collections.singletonList(item("b", "eggs")));
+        state.setRecentPurchases(new ArrayList<>());
+        state.setLedger(new SpendingLedger(2));
+
+        state.clearPurchases();
+        assertNull(state.getRecentPurchases());
+        assertNull(state.getLedger());
+        assertEquals(1, state.getOpenItems().size());
+        assertEquals(1, state.getBasket().size());
+
+        state.clear();
+        assertEquals(0, state.getOpenItems().size());
+        assertTrue(state.getBasket().isEmpty());
+    }
+}
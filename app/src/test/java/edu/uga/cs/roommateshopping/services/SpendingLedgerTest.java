@@ -0,0 +1,226 @@
+package edu.uga.cs.roommateshopping.services;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import edu.uga.cs.roommateshopping.models.Money;
+import edu.uga.cs.roommateshopping.models.Purchase;
+import edu.uga.cs.roommateshopping.models.ShoppingItem;
+
+import static org.junit.Assert.*;
+
+public class SpendingLedgerTest {
+
+    private static Purchase purchase(String by, double amount) {
+        return new Purchase(Arrays.asList("i1"), Arrays.asList("milk"), amount, by);
+    }
+
+    @Test
+    public void userKeyRoundTripsEmails() {
+        assertEquals("a,b@uga,edu", SpendingLedger.userKey("a.b@uga.edu"));
+        assertEquals("a.b@uga.edu", SpendingLedger.userEmail("a,b@uga,edu"));
+        assertEquals("ledger/spending/a,b@uga,edu", SpendingLedger.spendingPath("a.b@uga.edu"));
+    }
+
+    @Test
+    public void incrementalUpdatesMatchRebuildFromHistory() {
+        String[] users = {"a@uga.edu", "b@uga.edu", "c@uga.edu"};
+        Random random = new Random(42);
+        List<Purchase> history = new ArrayList<>();
+        SpendingLedger incremental = new SpendingLedger(users.length);
+
+        for (int i = 0; i < 5000; i++) {
+            int action = history.isEmpty() ? 0 : random.nextInt(3);
+            if (action == 0) {
+                Purchase added = purchase(users[random.nextInt(users.length)], random.nextInt(10000) / 100.0);
+                added.setPurchaseDate(i);
+                history.add(added);
+                incremental.apply(SpendingLedger.purchaseAdded(added));
+                incremental.recordPurchaseDate(added.getPurchaseDate());
+            } else if (action == 1) {
+                Purchase edited = history.get(random.nextInt(history.size()));
+                Money newAmount = Money.ofMinor(random.nextInt(10000));
+                incremental.apply(SpendingLedger.amountChanged(edited, edited.getTotal(), newAmount));
+                edited.setTotal(newAmount);
+            } else {
+                Purchase returned = history.remove(random.nextInt(history.size()));
+                incremental.apply(SpendingLedger.purchaseRemoved(returned));
+            }
+        }
+
+        SpendingLedger rebuilt = SpendingLedger.rebuild(history, users.length);
+        assertTrue(incremental.diff(rebuilt).isEmpty());
+        assertEquals(rebuilt.getTotalCents(), incremental.getTotalCents());
+        assertEquals(history.size(), incremental.getPurchaseCount());
+    }
+
+    @Test
+    public void diffReportsDrift() {
+        SpendingLedger stored = new SpendingLedger(2);
+        stored.apply(SpendingLedger.purchaseAdded(purchase("a@uga.edu", 10.00)));
+        SpendingLedger rebuilt = SpendingLedger.rebuild(Arrays.asList(
+                purchase("a@uga.edu", 10.00), purchase("b@uga.edu", 4.50)), 3);
+
+        List<String> mismatches = stored.diff(rebuilt);
+
+        // The stored side never recorded a checkout date either
+        assertEquals(5, mismatches.size());
+        assertTrue(mismatches.stream().anyMatch(m -> m.startsWith("lastPurchaseDate: 0 < ")));
+        assertTrue(mismatches.contains("userCount: 2 != 3"));
+        assertTrue(mismatches.contains("b@uga.edu: 0 != 450"));
+        assertTrue(mismatches.contains("totalCents: 1000 != 1450"));
+        assertTrue(mismatches.contains("purchaseCount: 1 != 2"));
+    }
+
+    @Test
+    public void lastPurchaseDateMayRunAheadOfHistory() {
+        Purchase first = purchase("a@uga.edu", 1.00);
+        first.setPurchaseDate(100);
+        Purchase second = purchase("a@uga.edu", 2.00);
+        second.setPurchaseDate(200);
+
+        SpendingLedger stored = SpendingLedger.rebuild(Arrays.asList(first, second), 1);
+        assertEquals(200, stored.getLastPurchaseDate());
+
+        // The newest purchase was returned: the date stays, the rest must follow
+        stored.apply(SpendingLedger.purchaseRemoved(second));
+        assertTrue(stored.diff(SpendingLedger.rebuild(Arrays.asList(first), 1)).isEmpty());
+
+        // A checkout the ledger never saw is drift
+        SpendingLedger missed = SpendingLedger.rebuild(Arrays.asList(first), 1);
+        assertFalse(missed.diff(SpendingLedger.rebuild(Arrays.asList(first, second), 1)).isEmpty());
+    }
+
+    @Test
+    public void storedAggregatesMatchRecomputationAfterCheckoutsEditsAndReturns() throws Exception {
+        InMemoryShoppingStorage storage = new InMemoryShoppingStorage(0, 4);
+        try {
+            String[] users = {"a@uga.edu", "b@uga.edu", "c@uga.edu"};
+            Random random = new Random(7);
+            for (int i = 0; i < 60; i++) {
+                String user = users[i % users.length];
+                ShoppingBasketServices service = new ShoppingBasketServices(storage, "uid-" + i, user);
+                List<ShoppingItem> basket = new ArrayList<>();
+                for (int j = 0; j <= i % 4; j++) {
+                    basket.add(new ShoppingItem("i" + i + "-" + j, "Item", 1 + random.nextInt(5),
+                            random.nextInt(1000) / 100.0, false, user));
+                }
+                CompletableFuture<String> done = new CompletableFuture<>();
+                service.checkoutBasket(basket, 0.07, callback(done));
+                done.get(1, TimeUnit.SECONDS);
+            }
+
+            // Re-price some purchases and return every item of others, each with its ledger deltas
+            List<Purchase> purchases = read(storage);
+            for (int i = 0; i < purchases.size(); i += 3) {
+                Purchase purchase = purchases.get(i);
+                Map<String, Object> updates;
+                Map<String, Long> deltas;
+                if (i % 2 == 0) {
+                    Money newAmount = Money.ofMinor(random.nextInt(5000));
+                    updates = new HashMap<>();
+                    updates.put(ShoppingStorage.purchasePath(purchase.getId()) + "/totalAmount", newAmount.toMajor());
+                    deltas = SpendingLedger.amountChanged(purchase, purchase.getTotal(), newAmount);
+                } else {
+                    updates = PurchaseReturn.build(purchase, purchase.getItemIds()).getUpdates();
+                    deltas = SpendingLedger.purchaseRemoved(purchase);
+                }
+                for (Map.Entry<String, Long> delta : deltas.entrySet()) {
+                    updates.put(delta.getKey(), ShoppingStorage.increment(delta.getValue()));
+                }
+                write(storage, updates);
+            }
+
+            List<Purchase> history = read(storage);
+            SpendingLedger stored = storedLedger(storage, users.length);
+            SpendingLedger rebuilt = SpendingLedger.rebuild(history, users.length);
+
+            assertEquals(Collections.emptyList(), stored.diff(rebuilt));
+            assertEquals(history.size(), stored.getPurchaseCount());
+            assertTrue(stored.getPurchaseCount() < 60);
+        } finally {
+            storage.shutdown();
+        }
+    }
+
+    // Reads the ledger node the way ShoppingRepository.readLedger does
+    private static SpendingLedger storedLedger(InMemoryShoppingStorage storage, long userCount) {
+        Map<?, ?> node = (Map<?, ?>) storage.get(SpendingLedger.LEDGER_PATH);
+        Map<String, Long> spending = new HashMap<>();
+        Map<?, ?> stored = (Map<?, ?>) node.get("spending");
+        if (stored != null) {
+            for (Map.Entry<?, ?> entry : stored.entrySet()) {
+                spending.put(entry.getKey().toString(), ((Number) entry.getValue()).longValue());
+            }
+        }
+        return SpendingLedger.fromStored(spending, Collections.emptySet(), userCount,
+                ((Number) node.get("totalCents")).longValue(),
+                ((Number) node.get("purchaseCount")).longValue(),
+                ((Number) node.get("lastPurchaseDate")).longValue());
+    }
+
+    private static List<Purchase> read(ShoppingStorage storage) throws Exception {
+        CompletableFuture<List<Purchase>> purchases = new CompletableFuture<>();
+        storage.getPurchases(new ShoppingStorage.Callback<List<Purchase>>() {
+            @Override
+            public void onSuccess(List<Purchase> result) {
+                purchases.complete(result);
+            }
+
+            @Override
+            public void onFailure(String errorMessage) {
+                purchases.completeExceptionally(new AssertionError(errorMessage));
+            }
+        });
+        return purchases.get(1, TimeUnit.SECONDS);
+    }
+
+    private static void write(ShoppingStorage storage, Map<String, Object> updates) throws Exception {
+        CompletableFuture<String> done = new CompletableFuture<>();
+        storage.update(updates, new ShoppingStorage.WriteCallback() {
+            @Override
+            public void onSuccess() {
+                done.complete(null);
+            }
+
+            @Override
+            public void onFailure(String errorMessage) {
+                done.completeExceptionally(new AssertionError(errorMessage));
+            }
+        });
+        done.get(1, TimeUnit.SECONDS);
+    }
+
+    private static ShoppingBasketServices.DatabaseCallback callback(CompletableFuture<String> done) {
+        return new ShoppingBasketServices.DatabaseCallback() {
+            @Override
+            public void onSuccess(String message) {
+                done.complete(message);
+            }
+
+            @Override
+            public void onFailure(String errorMessage) {
+                done.completeExceptionally(new AssertionError(errorMessage));
+            }
+        };
+    }
+
+    @Test
+    public void rebuildSumsExactCents() {
+        SpendingLedger ledger = SpendingLedger.rebuild(Arrays.asList(
+                purchase("a@uga.edu", 0.10), purchase("a@uga.edu", 0.20), purchase("b@uga.edu", 0.30)), 2);
+
+        assertEquals(60, ledger.getTotalCents());
+        assertEquals(30, ledger.getSpendingCents("a@uga.edu"));
+        assertEquals(Money.ofMinor(30), ledger.getSpending("b@uga.edu"));
+    }
+}
@@ -0,0 +1,141 @@
+package edu.uga.cs.roommateshopping.services;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class SubscriptionManagerTest {
+    private SubscriptionManager manager;
+    private FakeQuery query;
+
+    // Stands in for a database query: counts attaches and lets the test push values
+    private static class FakeQuery implements SubscriptionManager.Source<String> {
+        int attaches;
+        int removals;
+        SubscriptionManager.Observer<String> sink;
+
+        @Override
+        public SubscriptionManager.Registration attach(SubscriptionManager.Observer<String> sink) {
+            attaches++;
+            this.sink = sink;
+            return () -> {
+                removals++;
+                this.sink = null;
+            };
+        }
+
+        boolean isAttached() {
+            return sink != null;
+        }
+    }
+
+    private static class Recorder implements SubscriptionManager.Observer<String> {
+        final List<String> events = new ArrayList<>();
+
+        @Override
+        public void onValue(String value) {
+            events.add(value);
+        }
+
+        @Override
+        public void onError(String errorMessage) {
+            events.add("error " + errorMessage);
+        }
+    }
+
+    @Before
+    public void setUp() {
+        manager = new SubscriptionManager();
+        query = new FakeQuery();
+    }
+
+    @Test
+    public void attachesOnStartAndDetachesOnStop() {
+        SubscriptionManager.Subscription<String> subscription = manager.subscription("items", query, new Recorder());
+        assertFalse(query.isAttached());
+
+        subscription.start();
+        assertTrue(query.isAttached());
+        assertEquals(1, manager.getActiveListenerCount());
+
+        subscription.stop();
+        assertFalse(query.isAttached());
+        assertEquals(0, manager.getActiveListenerCount());
+    }
+
+    @Test
+    public void identicalQueriesShareOneListener() {
+        Recorder list = new Recorder();
+        Recorder badge = new Recorder();
+        SubscriptionManager.Subscription<String> first = manager.subscription("items", query, list);
+        SubscriptionManager.Subscription<String> second = manager.subscription("items", new FakeQuery(), badge);
+
+        first.start();
+        query.sink.onValue("v1");
+        second.start();
+        query.sink.onValue("v2");
+
+        assertEquals(1, query.attaches);
+        assertEquals(1, manager.getActiveListenerCount());
+        assertEquals(2, manager.getActiveSubscriberCount());
+        assertEquals(Arrays.asList("v1", "v2"), list.events);
+        // The late subscriber gets the last value at once
+        assertEquals(Arrays.asList("v1", "v2"), badge.events);
+
+        first.stop();
+        assertTrue(query.isAttached());
+        second.stop();
+        assertEquals(1, query.removals);
+        assertEquals(0, manager.getActiveSubscriberCount());
+    }
+
+    @Test
+    public void recreatedScreenDoesNotStackListeners() {
+        // Rotation: the old activity stops before the new one starts
+        for (int i = 0; i < 5; i++) {
+            SubscriptionManager.Subscription<String> subscription = manager.subscription("items", query, new Recorder());
+            subscription.start();
+            subscription.start();
+            assertEquals(1, manager.getSubscriberCount("items"));
+            subscription.stop();
+            subscription.stop();
+        }
+
+        assertEquals(5, query.attaches);
+        assertEquals(5, query.removals);
+        assertEquals(0, manager.getActiveListenerCount());
+    }
+
+    @Test
+    public void errorsReachEverySubscriberAndClearTheCachedValue() {
+        Recorder a = new Recorder();
+        Recorder b = new Recorder();
+        manager.subscription("items", query, a).start();
+        manager.subscription("items", query, b).start();
+        query.sink.onValue("v1");
+        query.sink.onError("permission denied");
+
+        Recorder late = new Recorder();
+        manager.subscription("items", query, late).start();
+
+        assertEquals(Arrays.asList("v1", "error permission denied"), a.events);
+        assertEquals(a.events, b.events);
+        assertTrue(late.events.isEmpty());
+    }
+
+    @Test
+    public void differentKeysGetTheirOwnListeners() {
+        FakeQuery purchases = new FakeQuery();
+        manager.subscription("items", query, new Recorder()).start();
+        manager.subscription("purchases", purchases, new Recorder()).start();
+
+        assertEquals(2, manager.getActiveListenerCount());
+        assertTrue(query.isAttached());
+        assertTrue(purchases.isAttached());
+    }
+}
@@ -0,0 +1,133 @@
+package edu.uga.cs.roommateshopping.services;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import edu.uga.cs.roommateshopping.models.ModelMapper;
+import edu.uga.cs.roommateshopping.models.ShoppingItem;
+
+import static org.junit.Assert.*;
+
+public class WriteCoalescerTest {
+    private InMemoryShoppingStorage storage;
+    private ScheduledExecutorService scheduler;
+
+    @Before
+    public void setUp() {
+        storage = new InMemoryShoppingStorage();
+        scheduler = Executors.newSingleThreadScheduledExecutor();
+    }
+
+    @After
+    public void tearDown() {
+        scheduler.shutdownNow();
+        storage.shutdown();
+    }
+
+    private Map<?, ?> node(String path) throws InterruptedException {
+        // Writes are applied asynchronously by the storage
+        for (int i = 0; i < 100 && storage.get(path) == null; i++) {
+            Thread.sleep(5);
+        }
+        return (Map<?, ?>) storage.get(path);
+    }
+
+    @Test
+    public void rapidEditsBecomeOneWriteWithLastValuePerField() throws Exception {
+        // A window long enough that only flush() sends anything
+        WriteCoalescer coalescer = new WriteCoalescer(storage, 60_000, scheduler);
+        String eggs = ShoppingStorage.itemPath("i1");
+        String milk = ShoppingStorage.itemPath("i2");
+
+        for (int i = 1; i <= 10; i++) {
+            coalescer.set(eggs, "name", "Eggs x" + i);
+        }
+        coalescer.set(eggs, "quantity", 12);
+        coalescer.set(milk, "name", "Milk");
+        coalescer.flush();
+
+        assertEquals("Eggs x10", node(eggs).get("name"));
+        assertEquals(12L, node(eggs).get("quantity"));
+        assertEquals("Milk", node(milk).get("name"));
+
+        assertEquals(12, coalescer.getRequestedCount());
+        assertEquals(1, coalescer.getIssuedCount());
+        assertEquals(11, coalescer.getCoalescedCount());
+        assertEquals(1, storage.getWriteCount());
+        assertEquals(0, coalescer.getPendingNodeCount());
+    }
+
+    @Test
+    public void windowFlushesOnItsOwn() throws Exception {
+        WriteCoalescer coalescer = new WriteCoalescer(storage, 20, scheduler);
+        coalescer.set(ShoppingStorage.itemPath("i1"), "name", "Eggs");
+        coalescer.set(ShoppingStorage.itemPath("i1"), "quantity", 6);
+
+        assertEquals(6L, node(ShoppingStorage.itemPath("i1")).get("quantity"));
+        assertEquals(1, coalescer.getIssuedCount());
+
+        // A flush with nothing pending sends nothing
+        coalescer.flush();
+        assertEquals(1, coalescer.getIssuedCount());
+    }
+
+    @Test
+    public void discardedNodeIsNotRecreated() throws Exception {
+        WriteCoalescer coalescer = new WriteCoalescer(storage, 60_000, scheduler);
+        coalescer.set(ShoppingStorage.itemPath("gone"), "name", "Deleted");
+        coalescer.set(ShoppingStorage.itemPath("kept"), "name", "Kept");
+        coalescer.discard(ShoppingStorage.itemPath("gone"));
+        coalescer.flush();
+
+        assertNotNull(node(ShoppingStorage.itemPath("kept")));
+        assertNull(storage.get(ShoppingStorage.itemPath("gone")));
+    }
+
+    @Test
+    public void renameThenMoveKeepsTheNewName() throws Exception {
+        // One network thread, so writes apply in the order issued, as on the real database
+        InMemoryShoppingStorage ordered = new InMemoryShoppingStorage(0, 1);
+        try {
+            WriteCoalescer coalescer = new WriteCoalescer(ordered, 60_000, scheduler);
+            ShoppingBasketServices service = new ShoppingBasketServices(ordered, "u1", "a@uga.edu");
+            ShoppingItem eggs = new ShoppingItem("i1", "Eggs", 1, 0, false, "a@uga.edu");
+            String item = ShoppingStorage.itemPath("i1");
+            String basketItem = ShoppingStorage.basketPath("u1") + "/i1";
+            coalescer.set(item, "name", "Free-range eggs");
+
+            // What MainActivity does when the row is ticked before the window closes
+            ShoppingItem moved = ModelMapper.withFields(eggs, coalescer.take(item));
+            CompletableFuture<String> done = new CompletableFuture<>();
+            service.moveItemToBasket(moved.getId(), moved, new ShoppingBasketServices.DatabaseCallback() {
+                @Override
+                public void onSuccess(String message) {
+                    done.complete(message);
+                }
+
+                @Override
+                public void onFailure(String errorMessage) {
+                    done.completeExceptionally(new AssertionError(errorMessage));
+                }
+            });
+            done.get(5, TimeUnit.SECONDS);
+            // The screen pausing later has nothing left to send for the item
+            coalescer.flush();
+
+            assertEquals("Free-range eggs", ((Map<?, ?>) ordered.get(basketItem)).get("name"));
+            assertEquals("Eggs", eggs.getName());
+            assertNull(ordered.get(item));
+            assertEquals(1, ordered.getWriteCount());
+            assertEquals(0, coalescer.getIssuedCount());
+            assertTrue(coalescer.take(item).isEmpty());
+        } finally {
+            ordered.shutdown();
+        }
+    }
+}
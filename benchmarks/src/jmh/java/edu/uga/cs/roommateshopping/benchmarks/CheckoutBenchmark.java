@@ -0,0 +1,44 @@
+package edu.uga.cs.roommateshopping.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import edu.uga.cs.roommateshopping.models.Purchase;
+import edu.uga.cs.roommateshopping.models.ShoppingItem;
+import edu.uga.cs.roommateshopping.services.CheckoutCalculator;
+
+// ShoppingBasketServices.checkoutBasket's total, tax and item map construction
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class CheckoutBenchmark {
+    private static final double TAX_RATE = 0.07;
+
+    @Param({"10", "100", "1000"})
+    public int basketSize;
+
+    private List<ShoppingItem> basket;
+
+    @Setup
+    public void setUp() {
+        basket = new ArrayList<>(basketSize);
+        for (int i = 0; i < basketSize; i++) {
+            basket.add(new ShoppingItem("-NxItem" + i, "Item " + i, 1 + i % 3, 0.99 + (i % 50), false, "a@uga.edu"));
+        }
+    }
+
+    @Benchmark
+    public Purchase buildPurchase() {
+        return CheckoutCalculator.buildPurchase(basket, TAX_RATE, "a@uga.edu");
+    }
+}
@@ -0,0 +1,90 @@
+package edu.uga.cs.roommateshopping.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import edu.uga.cs.roommateshopping.models.ShoppingItem;
+import edu.uga.cs.roommateshopping.services.InMemoryShoppingStorage;
+import edu.uga.cs.roommateshopping.services.ShoppingStorage;
+
+/**
+ * Basket moves from several users at once against InMemoryShoppingStorage,
+ * with no simulated latency: what the storage's write lock and tree cost
+ * per multi-path update when users contend for it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class InMemoryStorageBenchmark {
+    private InMemoryShoppingStorage storage;
+    private final AtomicInteger nextUser = new AtomicInteger();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        storage = new InMemoryShoppingStorage(0, 4);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        storage.shutdown();
+    }
+
+    // Each thread is one user moving its own item back and forth
+    @State(Scope.Thread)
+    public static class User {
+        String userId;
+        ShoppingItem item;
+        Map<String, Object> toBasket;
+        Map<String, Object> toList;
+
+        @Setup(Level.Trial)
+        public void setUp(InMemoryStorageBenchmark benchmark) {
+            userId = "u" + benchmark.nextUser.incrementAndGet();
+            item = new ShoppingItem(userId + "-item", "Item", 1, 1.25, false, userId);
+            String basketItemPath = ShoppingStorage.basketPath(userId) + "/" + item.getId();
+            toBasket = new HashMap<>();
+            toBasket.put(basketItemPath, item);
+            toBasket.put(ShoppingStorage.itemPath(item.getId()), null);
+            toList = new HashMap<>();
+            toList.put(ShoppingStorage.itemPath(item.getId()), item);
+            toList.put(basketItemPath, null);
+        }
+    }
+
+    @Benchmark
+    @Threads(8)
+    public void moveToBasketAndBack(User user) {
+        await(user.toBasket);
+        await(user.toList);
+    }
+
+    private void await(Map<String, Object> updates) {
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        storage.update(updates, new ShoppingStorage.WriteCallback() {
+            @Override
+            public void onSuccess() {
+                done.complete(null);
+            }
+
+            @Override
+            public void onFailure(String errorMessage) {
+                done.completeExceptionally(new IllegalStateException(errorMessage));
+            }
+        });
+        done.join();
+    }
+}
@@ -0,0 +1,65 @@
+package edu.uga.cs.roommateshopping.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import edu.uga.cs.roommateshopping.models.ModelMapper;
+import edu.uga.cs.roommateshopping.models.Purchase;
+import edu.uga.cs.roommateshopping.models.ShoppingItem;
+
+// Models to and from the map shape the database stores
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ModelMappingBenchmark {
+    private ShoppingItem item;
+    private Map<String, Object> itemMap;
+    private Purchase purchase;
+    private Map<String, Object> purchaseMap;
+
+    @Setup
+    public void setUp() {
+        item = new ShoppingItem("-NxItem0001", "Whole milk, 1 gallon", 2, 3.49, false, "roommate@uga.edu");
+        itemMap = ModelMapper.toMap(item);
+
+        List<String> ids = new ArrayList<>();
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            ids.add("-NxItem" + i);
+            names.add("Item number " + i);
+        }
+        purchase = new Purchase(ids, names, 42.17, "roommate@uga.edu");
+        purchase.setId("-NxPurchase01");
+        purchaseMap = ModelMapper.toMap(purchase);
+    }
+
+    @Benchmark
+    public Map<String, Object> itemToMap() {
+        return ModelMapper.toMap(item);
+    }
+
+    @Benchmark
+    public ShoppingItem itemFromMap() {
+        return ModelMapper.toShoppingItem("-NxItem0001", itemMap);
+    }
+
+    @Benchmark
+    public Map<String, Object> purchaseToMap() {
+        return ModelMapper.toMap(purchase);
+    }
+
+    @Benchmark
+    public Purchase purchaseFromMap() {
+        return ModelMapper.toPurchase("-NxPurchase01", purchaseMap);
+    }
+}
@@ -0,0 +1,58 @@
+package edu.uga.cs.roommateshopping.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import edu.uga.cs.roommateshopping.models.Money;
+
+// Summing a history and splitting it between members, in cents and in the doubles it replaced
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class MoneyBenchmark {
+    private static final int MEMBERS = 7;
+
+    @Param({"1000", "2000000"})
+    public int size;
+
+    private double[] amounts;
+    private long[] cents;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(1);
+        amounts = new double[size];
+        cents = new long[size];
+        for (int i = 0; i < size; i++) {
+            cents[i] = random.nextInt(50_000);
+            amounts[i] = Money.toMajor(cents[i]);
+        }
+    }
+
+    @Benchmark
+    public long[] sumAndSplitCents() {
+        long total = 0;
+        for (long amount : cents) {
+            total += amount;
+        }
+        return Money.split(total, MEMBERS);
+    }
+
+    @Benchmark
+    public double sumAndSplitDouble() {
+        double total = 0;
+        for (double amount : amounts) {
+            total += amount;
+        }
+        return total / MEMBERS;
+    }
+}
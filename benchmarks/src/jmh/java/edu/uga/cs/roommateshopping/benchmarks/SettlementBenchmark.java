@@ -0,0 +1,63 @@
+package edu.uga.cs.roommateshopping.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import edu.uga.cs.roommateshopping.models.Money;
+import edu.uga.cs.roommateshopping.models.Purchase;
+import edu.uga.cs.roommateshopping.services.SettlementEngine;
+import edu.uga.cs.roommateshopping.services.SpendingLedger;
+
+// The settle screen's work: per-user aggregation of the history, then the transfers
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SettlementBenchmark {
+    @Param({"4", "100", "5000"})
+    public int users;
+
+    @Param({"1000", "100000", "200000"})
+    public int purchases;
+
+    private List<Purchase> history;
+    private Map<String, Long> spending;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        history = new ArrayList<>(purchases);
+        for (int i = 0; i < purchases; i++) {
+            Purchase purchase = new Purchase(Collections.emptyList(), Collections.emptyList(),
+                    Money.ofMinor(100 + random.nextInt(20_000)), "user" + random.nextInt(users) + "@uga.edu");
+            history.add(purchase);
+        }
+        spending = aggregate();
+    }
+
+    @Benchmark
+    public Map<String, Long> aggregate() {
+        SpendingLedger ledger = SpendingLedger.rebuild(history, users);
+        for (int i = 0; i < users; i++) {
+            ledger.addMember("user" + i + "@uga.edu");
+        }
+        return ledger.getSpendingByMember();
+    }
+
+    @Benchmark
+    public List<SettlementEngine.Transfer> settle() {
+        return SettlementEngine.settle(spending);
+    }
+}
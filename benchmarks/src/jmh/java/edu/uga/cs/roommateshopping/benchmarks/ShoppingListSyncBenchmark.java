@@ -0,0 +1,114 @@
+package edu.uga.cs.roommateshopping.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import edu.uga.cs.roommateshopping.models.ShoppingItem;
+import edu.uga.cs.roommateshopping.services.ShoppingListSync;
+
+/**
+ * The shopping list's diffing: ShoppingListSync turns child events into
+ * positional updates. Measured are the initial load, in-place changes and
+ * removals/inserts in the middle of the list, which shift every later row,
+ * and the search field's queries as they are typed.
+ * RecyclerView's DiffUtil is Android-only and not covered here.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ShoppingListSyncBenchmark {
+    private static final int EVENTS = 100;
+    private static final String[] NAMES = {"milk", "bread", "eggs", "apples", "coffee", "rice", "pasta", "cheese"};
+    private static final String[] KEYSTROKES = {"c", "co", "cof", "coff", "coffee", "coffee 1", "coffee 12"};
+
+    @Param({"100", "10000", "100000"})
+    public int size;
+
+    private List<ShoppingItem> items;
+    private ShoppingListSync sync;
+    private String[] targetIds;
+    private String[] previousIds;
+    private ShoppingItem[] changed;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        items = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            items.add(new ShoppingItem(String.format("-NxItem%07d", i), NAMES[i % NAMES.length] + " " + i, 1, 1.0, false, "a@uga.edu"));
+        }
+
+        sync = new ShoppingListSync();
+        for (ShoppingItem item : items) {
+            sync.append(item);
+        }
+
+        // Fixed targets, so every run touches the same rows
+        Random random = new Random(7);
+        targetIds = new String[EVENTS];
+        previousIds = new String[EVENTS];
+        changed = new ShoppingItem[EVENTS];
+        for (int i = 0; i < EVENTS; i++) {
+            int position = 1 + random.nextInt(size - 1);
+            ShoppingItem item = items.get(position);
+            targetIds[i] = item.getId();
+            previousIds[i] = items.get(position - 1).getId();
+            changed[i] = new ShoppingItem(item.getId(), item.getName() + " (2)", 2, 1.0, false, "a@uga.edu");
+        }
+    }
+
+    // Initial children arrive in order, each naming the one before it
+    @Benchmark
+    public ShoppingListSync load() {
+        ShoppingListSync fresh = new ShoppingListSync();
+        String previousId = null;
+        for (ShoppingItem item : items) {
+            fresh.applyAdded(item, previousId);
+            previousId = item.getId();
+        }
+        return fresh;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(EVENTS)
+    public void change(Blackhole blackhole) {
+        for (int i = 0; i < EVENTS; i++) {
+            sync.applyChanged(changed[i], previousIds[i]);
+        }
+        blackhole.consume(sync.size());
+    }
+
+    // Each removal is put back at the same position, so the list is unchanged afterwards
+    @Benchmark
+    @OperationsPerInvocation(EVENTS)
+    public void removeAndInsert(Blackhole blackhole) {
+        for (int i = 0; i < EVENTS; i++) {
+            ShoppingItem item = sync.findById(targetIds[i]);
+            sync.applyRemoved(targetIds[i]);
+            sync.applyAdded(item, previousIds[i]);
+        }
+        blackhole.consume(sync.size());
+    }
+
+    // One query per keystroke of "coffee 12", answered from the name index
+    @Benchmark
+    @OperationsPerInvocation(7)
+    public void search(Blackhole blackhole) {
+        for (String query : KEYSTROKES) {
+            blackhole.consume(sync.search(query));
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package edu.uga.cs.roommateshopping.benchmarks;
+
+import com.google.firebase.database.utilities.encoding.CustomClassMapper;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import edu.uga.cs.roommateshopping.models.ModelMapper;
+import edu.uga.cs.roommateshopping.models.Money;
+import edu.uga.cs.roommateshopping.models.Purchase;
+import edu.uga.cs.roommateshopping.models.PurchaseLine;
+import edu.uga.cs.roommateshopping.models.ShoppingItem;
+
+/**
+ * Whole snapshots of shopping_items and purchases mapped by hand
+ * (ModelMapper, what the repository reads with) against the reflective
+ * bean mapping behind DataSnapshot.getValue(Class) and setValue(model).
+ * The Admin SDK's CustomClassMapper is the same mapper the Android SDK
+ * uses; both sides start from the raw value the snapshot already holds.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SnapshotMappingBenchmark {
+    private static final int LINES_PER_PURCHASE = 5;
+
+    @Param({"1000", "10000"})
+    public int size;
+
+    private Map<String, Object> itemsSnapshot;
+    private Map<String, Object> purchasesSnapshot;
+    private List<ShoppingItem> items;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        items = new ArrayList<>(size);
+        itemsSnapshot = new HashMap<>(size * 2);
+        purchasesSnapshot = new HashMap<>(size * 2);
+        for (int i = 0; i < size; i++) {
+            String id = String.format("-NxItem%07d", i);
+            ShoppingItem item = new ShoppingItem(id, "Item number " + i, 1 + i % 4, 0.99 + i % 20, false, "a@uga.edu");
+            items.add(item);
+            itemsSnapshot.put(id, asStored(ModelMapper.toMap(item)));
+
+            List<PurchaseLine> lines = new ArrayList<>(LINES_PER_PURCHASE);
+            for (int j = 0; j < LINES_PER_PURCHASE; j++) {
+                lines.add(new PurchaseLine(id + "-" + j, "Line " + j, 1 + j, Money.ofMinor(199 + j)));
+            }
+            Purchase purchase = new Purchase(lines, Money.ofMinor(1500 + i), "a@uga.edu");
+            String purchaseId = String.format("-NxPurchase%07d", i);
+            purchase.setId(purchaseId);
+            purchasesSnapshot.put(purchaseId, asStored(ModelMapper.toMap(purchase)));
+        }
+    }
+
+    // Whole numbers come back from the database as Long
+    @SuppressWarnings("unchecked")
+    private static Object asStored(Object value) {
+        if (value instanceof Integer) return ((Integer) value).longValue();
+        if (value instanceof Map) {
+            Map<String, Object> map = new HashMap<>();
+            for (Map.Entry<String, Object> entry : ((Map<String, Object>) value).entrySet()) {
+                if (entry.getValue() != null) {
+                    map.put(entry.getKey(), asStored(entry.getValue()));
+                }
+            }
+            return map;
+        }
+        if (value instanceof List) {
+            List<Object> list = new ArrayList<>();
+            for (Object element : (List<Object>) value) {
+                list.add(asStored(element));
+            }
+            return list;
+        }
+        return value;
+    }
+
+    @Benchmark
+    public List<ShoppingItem> readItemsByHand() {
+        List<ShoppingItem> read = new ArrayList<>(itemsSnapshot.size());
+        for (Map.Entry<String, Object> child : itemsSnapshot.entrySet()) {
+            read.add(ModelMapper.toShoppingItem(child.getKey(), (Map<?, ?>) child.getValue()));
+        }
+        return read;
+    }
+
+    @Benchmark
+    public List<ShoppingItem> readItemsByBeanMapping() {
+        List<ShoppingItem> read = new ArrayList<>(itemsSnapshot.size());
+        for (Map.Entry<String, Object> child : itemsSnapshot.entrySet()) {
+            ShoppingItem item = CustomClassMapper.convertToCustomClass(child.getValue(), ShoppingItem.class);
+            item.setId(child.getKey());
+            read.add(item);
+        }
+        return read;
+    }
+
+    @Benchmark
+    public List<Purchase> readPurchasesByHand() {
+        List<Purchase> read = new ArrayList<>(purchasesSnapshot.size());
+        for (Map.Entry<String, Object> child : purchasesSnapshot.entrySet()) {
+            read.add(ModelMapper.toPurchase(child.getKey(), (Map<?, ?>) child.getValue()));
+        }
+        return read;
+    }
+
+    @Benchmark
+    public List<Purchase> readPurchasesByBeanMapping() {
+        List<Purchase> read = new ArrayList<>(purchasesSnapshot.size());
+        for (Map.Entry<String, Object> child : purchasesSnapshot.entrySet()) {
+            Purchase purchase = CustomClassMapper.convertToCustomClass(child.getValue(), Purchase.class);
+            purchase.setId(child.getKey());
+            read.add(purchase);
+        }
+        return read;
+    }
+
+    @Benchmark
+    public List<Object> writeItemsByHand() {
+        List<Object> written = new ArrayList<>(items.size());
+        for (ShoppingItem item : items) {
+            written.add(ModelMapper.toMap(item));
+        }
+        return written;
+    }
+
+    @Benchmark
+    public List<Object> writeItemsByBeanMapping() {
+        List<Object> written = new ArrayList<>(items.size());
+        for (ShoppingItem item : items) {
+            written.add(CustomClassMapper.convertToPlainJavaTypes(item));
+        }
+        return written;
+    }
+}